@@ -18,12 +18,29 @@
  */
 package net.darmo_creations.gui_framework;
 
+import java.awt.SplashScreen;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+import javax.swing.UIDefaults;
 import javax.swing.UIManager;
 import javax.swing.UnsupportedLookAndFeelException;
 
@@ -31,7 +48,18 @@ import net.darmo_creations.gui_framework.config.DefaultConfigTags;
 import net.darmo_creations.gui_framework.config.Language;
 import net.darmo_creations.gui_framework.config.WritableConfig;
 import net.darmo_creations.gui_framework.dao.ConfigDao;
+import net.darmo_creations.gui_framework.events.NewInstanceEvent;
+import net.darmo_creations.gui_framework.events.journal.EventCodecs;
+import net.darmo_creations.gui_framework.events.journal.EventRecorder;
 import net.darmo_creations.gui_framework.gui.ApplicationFrame;
+import net.darmo_creations.gui_framework.gui.LocalizationRegistry;
+import net.darmo_creations.gui_framework.gui.StartupSplash;
+import net.darmo_creations.gui_framework.lifecycle.SingleInstance;
+import net.darmo_creations.gui_framework.startup.StartupPipeline;
+import net.darmo_creations.gui_framework.startup.StartupProfiler;
+import net.darmo_creations.gui_framework.startup.StartupTraining;
+import net.darmo_creations.gui_framework.util.ImagesUtil;
+import net.darmo_creations.gui_framework.util.UpdatesChecker;
 import net.darmo_creations.utils.I18n;
 import net.darmo_creations.utils.version.Version;
 
@@ -43,6 +71,14 @@ import net.darmo_creations.utils.version.Version;
 public abstract class Application {
   public static final String ICONS_LOCATION = "/assets/icons/";
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(Application.class);
+
+  /** Maximum number of startup stages executed at the same time */
+  private static final int STARTUP_THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+  /** Maximum duration in seconds of the config saving on exit */
+  private static final long CONFIG_SAVE_TIMEOUT = 10;
+
   private static boolean launched = false;
 
   /**
@@ -64,6 +100,11 @@ public abstract class Application {
    * }
    * </pre>
    *
+   * <p>
+   * Starting the JVM with {@code -Dgui_framework.startup.training=true} launches the application in
+   * training mode, see {@link StartupTraining}.
+   * </p>
+   *
    * @param args the command line arguments passed to the application. An application may get these
    *          parameters using the {@link #getParameters()} method
    *
@@ -73,23 +114,30 @@ public abstract class Application {
     if (launched)
       throw new IllegalStateException("Application already launched!");
 
-    StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
-    boolean foundThisMethod = false;
     String callingClassName = null;
 
-    // Skip entries until we get to the entry for this class
-    for (StackTraceElement se : stackTrace) {
-      String className = se.getClassName();
-      String methodName = se.getMethodName();
-
-      if (foundThisMethod) {
-        callingClassName = className;
-        break;
-      }
-      else if (Application.class.getName().equals(className) && "launch".equals(methodName)) {
-        foundThisMethod = true;
+    StartupProfiler.Phase phase = StartupProfiler.begin("launch.find_application_class");
+    try {
+      StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
+      boolean foundThisMethod = false;
+
+      // Skip entries until we get to the entry for this class
+      for (StackTraceElement se : stackTrace) {
+        String className = se.getClassName();
+        String methodName = se.getMethodName();
+
+        if (foundThisMethod) {
+          callingClassName = className;
+          break;
+        }
+        else if (Application.class.getName().equals(className) && "launch".equals(methodName)) {
+          foundThisMethod = true;
+        }
       }
     }
+    finally {
+      phase.end();
+    }
 
     if (callingClassName == null) {
       throw new RuntimeException("Unable to determine Application class!");
@@ -100,7 +148,15 @@ public abstract class Application {
       if (Application.class.isAssignableFrom(theClass)) {
         @SuppressWarnings("unchecked")
         Class<? extends Application> appClass = (Class<? extends Application>) theClass;
-        launchApplication(appClass.newInstance(), args);
+        Application application;
+        StartupProfiler.Phase instantiation = StartupProfiler.begin("launch.instantiate");
+        try {
+          application = appClass.newInstance();
+        }
+        finally {
+          instantiation.end();
+        }
+        launchApplication(application, args);
       }
       else {
         throw new RuntimeException(theClass + " is not a subclass of net._darmo_creations.gui_framework.Application!");
@@ -118,51 +174,313 @@ public abstract class Application {
     application.setParameters(args);
     ApplicationRegistry.registerApplication(application);
 
-    WritableConfig.registerTag(DefaultConfigTags.CHECK_UPDATES, application.checkUpdates());
-    application.preInit();
-
-    WritableConfig config = ConfigDao.getInstance().load();
+    SingleInstance instance = null;
+    if (application.isSingleInstance()) {
+      StartupProfiler.Phase phase = StartupProfiler.begin("single_instance");
+      try {
+        Optional<SingleInstance> opt = SingleInstance.acquire(application.getName());
+        if (opt.isPresent())
+          instance = opt.get();
+        else {
+          try {
+            if (SingleInstance.forward(application.getName(), args))
+              return;
+            LOGGER.warn("Another instance seems to be running but could not be reached");
+          }
+          catch (IOException ex) {
+            // The running instance may still handle the arguments, launching would handle them twice
+            LOGGER.error("The running instance did not acknowledge the arguments", ex);
+            return;
+          }
+        }
+      }
+      catch (IOException ex) {
+        LOGGER.warn("Could not check for a running instance", ex);
+      }
+      finally {
+        phase.end();
+      }
+    }
 
-    setLanguage(application, config, false);
+    // The native splash screen (-splash option) is already visible in that case
+    StartupSplash splash = null;
+    if (application.hasSplashScreen() && SplashScreen.getSplashScreen() == null)
+      splash = new StartupSplash(application.getName() + " " + application.getCurrentVersion(),
+          application.getSplashImage().isPresent() ? application.getSplashImage() : application.getIcon());
 
+    AtomicReference<ApplicationFrame<?>> frame = new AtomicReference<>();
     try {
-      UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+      StartupProfiler.run("pre_init", () -> {
+        WritableConfig.registerTag(DefaultConfigTags.CHECK_UPDATES, application.checkUpdates());
+        WritableConfig.registerTag(DefaultConfigTags.LOOK_AND_FEEL, DefaultConfigTags.SYSTEM_LOOK_AND_FEEL);
+        ApplicationRegistry.registerService(ConfigDao.class, ConfigDao::new);
+        ApplicationRegistry.registerService(UpdatesChecker.class, () -> {
+          UpdatesChecker checker = new UpdatesChecker();
+          ApplicationRegistry.LIFECYCLE.addShutdownTask("cancel_updates_check", checker::cancel, 1, TimeUnit.SECONDS);
+          return checker;
+        });
+        String journal = System.getProperty(EventRecorder.JOURNAL_PROPERTY);
+        if (journal != null)
+          startEventRecorder(journal);
+        application.preInit();
+      });
+
+      StartupPipeline pipeline = new StartupPipeline(STARTUP_THREADS);
+      pipeline.addStage(StartupPipeline.CONFIG, () -> ConfigDao.getInstance().load());
+      pipeline.addStage(StartupPipeline.LANGUAGE, () -> loadLanguage(application, pipeline.getResult(StartupPipeline.CONFIG)),
+          StartupPipeline.CONFIG);
+      pipeline.addStage(StartupPipeline.LOOK_AND_FEEL, () -> loadLookAndFeel(pipeline.getResult(StartupPipeline.CONFIG)),
+          StartupPipeline.CONFIG);
+      pipeline.addStage(StartupPipeline.ICONS, () -> loadIcons(application), StartupPipeline.LOOK_AND_FEEL);
+      if (!StartupTraining.isRecording())
+        StartupTraining.loadManifest().ifPresent(m -> m.preload(application.getClass().getClassLoader()));
+      application.registerStartupStages(pipeline);
+      if (splash != null)
+        pipeline.setProgressListener(splash::setProgress);
+      StartupProfiler.run("pipeline", pipeline::run);
+
+      WritableConfig config = pipeline.getResult(StartupPipeline.CONFIG);
+      ApplicationRegistry.LIFECYCLE.addCriticalShutdownTask("save_config", () -> ConfigDao.getInstance().save(config), CONFIG_SAVE_TIMEOUT,
+          TimeUnit.SECONDS);
+      if (instance != null)
+        ApplicationRegistry.LIFECYCLE.addShutdownTask("single_instance", instance::close, 1, TimeUnit.SECONDS);
+      LanguageStatus languageStatus = pipeline.getResult(StartupPipeline.LANGUAGE);
+      boolean lafLoaded = pipeline.getResult(StartupPipeline.LOOK_AND_FEEL);
+
+      if (splash != null && (languageStatus != LanguageStatus.LOADED || !lafLoaded))
+        splash.close();
+
+      application.config = config;
+
+      // Swing components must only be created and shown on the EDT
+      runOnEdt(() -> {
+        showStartupErrors(languageStatus, lafLoaded);
+        frame.set(StartupProfiler.call("init_frame", application::createFrame));
+      });
     }
-    catch (ClassNotFoundException | InstantiationException | IllegalAccessException | UnsupportedLookAndFeelException ex) {
+    catch (RuntimeException | Error ex) {
+      // The splash and the lock would otherwise keep the process alive or prevent relaunching
+      if (splash != null)
+        splash.close();
+      if (instance != null)
+        instance.close();
+      throw ex;
+    }
+    launched = true;
+
+    StartupSplash s = splash;
+    SingleInstance i = instance;
+    SwingUtilities.invokeLater(() -> {
+      StartupProfiler.run("show_frame", () -> frame.get().setVisible(true));
+      if (s != null)
+        s.close();
+      ApplicationRegistry.LIFECYCLE.setRunning();
+      ApplicationRegistry.startIdleServices();
+      // Launches that happened in the meantime have been queued
+      if (i != null)
+        i.listen(params -> SwingUtilities.invokeLater(() -> ApplicationRegistry.EVENTS_BUS.dispatchEvent(new NewInstanceEvent(params))));
+      StartupProfiler.stop();
+      StartupTraining.finish(application.getName().replaceAll("\\W+", "_"), ApplicationRegistry.LIFECYCLE);
+    });
+  }
+
+  /**
+   * Shows the errors that occured during startup. Must be called from the EDT.
+   */
+  private static void showStartupErrors(LanguageStatus languageStatus, boolean lafLoaded) {
+    if (languageStatus == LanguageStatus.FAILED) {
+      JOptionPane.showMessageDialog(null, "Could not load default language file! This application will now exit.", "Error",
+          JOptionPane.ERROR_MESSAGE);
+      System.exit(1);
+    }
+    else if (languageStatus == LanguageStatus.DEFAULT) {
+      JOptionPane.showMessageDialog(null, "Could not load language file! Switching to default language.", "Error",
+          JOptionPane.ERROR_MESSAGE);
+    }
+
+    if (!lafLoaded) {
       JOptionPane.showMessageDialog(null, I18n.getLocalizedString("popup.laf_error.text"), I18n.getLocalizedString("popup.laf_error.title"),
           JOptionPane.ERROR_MESSAGE);
     }
+  }
 
-    ApplicationFrame<?> frame = application.initFrame(config);
-    launched = true;
-    frame.setVisible(true);
+  /**
+   * Runs the given task on the EDT and waits for it to complete.
+   * 
+   * @param task the task
+   */
+  private static void runOnEdt(Runnable task) {
+    if (SwingUtilities.isEventDispatchThread()) {
+      task.run();
+      return;
+    }
+    try {
+      SwingUtilities.invokeAndWait(task);
+    }
+    catch (InvocationTargetException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof RuntimeException)
+        throw (RuntimeException) cause;
+      if (cause instanceof Error)
+        throw (Error) cause;
+      throw new RuntimeException(cause);
+    }
+    catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(ex);
+    }
+  }
+
+  /**
+   * Records the events dispatched on the main bus and its descendants to the given journal until
+   * shutdown.
+   */
+  private static void startEventRecorder(String path) {
+    try {
+      EventRecorder recorder = EventRecorder.start(ApplicationRegistry.EVENTS_BUS, Files.newOutputStream(Paths.get(path)),
+          EventCodecs.withDefaults());
+      ApplicationRegistry.LIFECYCLE.addShutdownTask("event_journal", () -> {
+        try {
+          recorder.close();
+        }
+        catch (IOException ex) {
+          LOGGER.warn("Could not close the events journal", ex);
+        }
+      }, 1, TimeUnit.SECONDS);
+      LOGGER.info("Recording events to {}", path);
+    }
+    catch (IOException ex) {
+      LOGGER.warn("Could not record events to " + path, ex);
+    }
   }
 
-  private static void setLanguage(Application application, WritableConfig config, boolean error) {
+  /**
+   * Loads the language file for the config's language. If it fails, the default language is set in
+   * the config and loaded instead.
+   * 
+   * @return the outcome
+   */
+  private static LanguageStatus loadLanguage(Application application, WritableConfig config) {
     try {
-      I18n.init(application.getLanguageFilesStream(config.getLanguage()));
+      initLanguage(application, config.getLanguage());
+      return LanguageStatus.LOADED;
     }
-    catch (NullPointerException | IOException ex) {
-      if (error) {
-        JOptionPane.showMessageDialog(null, "Could not load default language file! This application will now exit.", "Error",
-            JOptionPane.ERROR_MESSAGE);
-        System.exit(1);
+    catch (IOException ex) {
+      LOGGER.warn("Could not load language file {}, falling back to the default language", config.getLanguage().getCode(), ex);
+      config.setLanguage(application.getDefaultLanguage());
+      try {
+        initLanguage(application, config.getLanguage());
+        return LanguageStatus.DEFAULT;
       }
-      else {
-        JOptionPane.showMessageDialog(null, "Could not load language file! Swithing to default language.", "Error",
-            JOptionPane.ERROR_MESSAGE);
-        config.setLanguage(application.getDefaultLanguage());
-        setLanguage(application, config, true);
+      catch (IOException ex2) {
+        LOGGER.error("Could not load default language file {}", config.getLanguage().getCode(), ex2);
+        return LanguageStatus.FAILED;
       }
     }
   }
 
+  /**
+   * Loads the language file of the given language, closing it afterwards.
+   * 
+   * @throws IOException if there is no file for this language or it could not be read
+   */
+  private static void initLanguage(Application application, Language language) throws IOException {
+    try (InputStream in = application.getLanguageFilesStream(language)) {
+      if (in == null)
+        throw new IOException("no language file for " + language.getCode());
+      I18n.init(in);
+    }
+  }
+
+  /**
+   * Installs the configured look and feel then loads the UI delegates classes so that creating the
+   * first components on the EDT does not have to. If the configured look and feel cannot be
+   * installed, the system one is used instead.
+   * <p>
+   * This is called from a pipeline thread rather than the EDT. It is safe because no Swing component
+   * exists yet, so the EDT has nothing to update: the splash is a plain AWT window and the frame is
+   * created once the pipeline is done. The icons stage depends on this one so that nothing else uses
+   * Swing meanwhile; icons preloaded from the manifest are only decoded, they do not use the look
+   * and feel.
+   * </p>
+   * 
+   * @return true if the configured look and feel or the system one was installed; false if neither
+   *         could be
+   */
+  private static boolean loadLookAndFeel(WritableConfig config) {
+    long start = System.nanoTime();
+    String name = config.getValue(DefaultConfigTags.LOOK_AND_FEEL);
+    String className = DefaultConfigTags.SYSTEM_LOOK_AND_FEEL.equals(name) ? UIManager.getSystemLookAndFeelClassName() : name;
+
+    try {
+      UIManager.setLookAndFeel(className);
+    }
+    catch (ClassNotFoundException | InstantiationException | IllegalAccessException | UnsupportedLookAndFeelException ex) {
+      LOGGER.warn("Could not install look and feel {}, falling back to the system one", className, ex);
+      className = UIManager.getSystemLookAndFeelClassName();
+      try {
+        UIManager.setLookAndFeel(className);
+      }
+      catch (ClassNotFoundException | InstantiationException | IllegalAccessException | UnsupportedLookAndFeelException __) {
+        return false;
+      }
+    }
+    long installed = System.nanoTime();
+
+    UIDefaults defaults = UIManager.getLookAndFeelDefaults();
+    ClassLoader classLoader = Application.class.getClassLoader();
+    for (Object key : defaults.keySet().toArray()) {
+      Object value = defaults.get(key);
+      if (key instanceof String && ((String) key).endsWith("UI") && value instanceof String) {
+        try {
+          Class.forName((String) value, true, classLoader);
+        }
+        catch (ClassNotFoundException | LinkageError __) {}
+      }
+    }
+
+    LOGGER.info("Look and feel {} installed in {} ms, UI delegates loaded in {} ms", className,
+        TimeUnit.NANOSECONDS.toMillis(installed - start), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - installed));
+    return true;
+  }
+
+  /**
+   * Decodes the framework's icons as well as the application's ones.
+   */
+  private static Void loadIcons(Application application) {
+    // Loading any icon initializes the framework's ones
+    ImagesUtil.getIcon(ICONS_LOCATION + "help.png");
+    application.getIcon().ifPresent(ImagesUtil::getIcon);
+    for (Language language : application.getLanguages()) {
+      String path = ICONS_LOCATION + "flag-" + language.getCode() + ".png";
+      if (Application.class.getResource(path) != null)
+        ImagesUtil.getIcon(path);
+    }
+    return null;
+  }
+
+  /** Outcomes of the language stage. */
+  private enum LanguageStatus {
+    /** The configured language has been loaded. */
+    LOADED,
+    /** The configured language could not be loaded, the default one has been loaded instead. */
+    DEFAULT,
+    /** No language could be loaded. */
+    FAILED;
+  }
+
   private String[] parameters;
   /** List of available languages */
   private Language[] languages;
   private Language defaultLanguage;
+  /** The config shared by all frames */
+  private WritableConfig config;
+  /** Open frames, the most recently active one last */
+  private final List<ApplicationFrame<?>> frames;
 
-  protected Application() {}
+  protected Application() {
+    this.frames = new CopyOnWriteArrayList<>();
+  }
 
   /**
    * Returns command-line parameters.
@@ -177,10 +495,22 @@ public abstract class Application {
 
   /**
    * This method is called before any other from this class. Languages should be registered in this
-   * method by calling {@link #setLanguages(Language...)} method.
+   * method by calling {@link #setLanguages(Language...)} method. Services may be registered or
+   * replaced here through {@link ApplicationRegistry#registerService(Class, java.util.function.Supplier)}.
    */
   protected void preInit() {}
 
+  /**
+   * Called after {@link #preInit()} to register additional startup stages. Stages run in parallel
+   * with the framework's ones (see the constants in {@link StartupPipeline}) and may depend on them,
+   * e.g. to read the config through {@code pipeline.getResult(StartupPipeline.CONFIG)}. Stages that
+   * use Swing must depend on {@link StartupPipeline#LOOK_AND_FEEL}, which is installed off the EDT.
+   * All stages have completed when {@link #initFrame(WritableConfig)} is called.
+   * 
+   * @param pipeline the startup pipeline
+   */
+  protected void registerStartupStages(StartupPipeline pipeline) {}
+
   /**
    * The application's main frame must be initialized in this method.
    * 
@@ -189,6 +519,67 @@ public abstract class Application {
    */
   protected abstract ApplicationFrame<?> initFrame(WritableConfig config);
 
+  /**
+   * Opens a new frame. All frames share the same config, icons and language but each one has its
+   * own controller and events bus. The application exits when the last frame is closed. This method
+   * must be called from the EDT once the application has been launched.
+   * 
+   * @return the new frame, already visible
+   * @throws IllegalStateException if the application has not been launched or the current thread
+   *           is not the EDT
+   */
+  public ApplicationFrame<?> openWindow() {
+    if (this.config == null)
+      throw new IllegalStateException("application not launched");
+    if (!SwingUtilities.isEventDispatchThread())
+      throw new IllegalStateException("frames must be opened from the EDT");
+
+    ApplicationFrame<?> active = getActiveFrame();
+    ApplicationFrame<?> frame = createFrame();
+    if (active != null && active.isShowing() && frame.getExtendedState() == ApplicationFrame.NORMAL)
+      frame.setLocation(active.getX() + 30, active.getY() + 30);
+    frame.setVisible(true);
+    return frame;
+  }
+
+  /**
+   * Creates a frame and keeps track of it until it is disposed of.
+   */
+  private ApplicationFrame<?> createFrame() {
+    ApplicationFrame<?> frame = initFrame(this.config);
+    this.frames.add(frame);
+    frame.addWindowListener(new WindowAdapter() {
+      @Override
+      public void windowActivated(WindowEvent e) {
+        if (Application.this.frames.remove(frame))
+          Application.this.frames.add(frame);
+      }
+
+      @Override
+      public void windowClosed(WindowEvent e) {
+        Application.this.frames.remove(frame);
+      }
+    });
+    return frame;
+  }
+
+  /**
+   * Returns all open frames.
+   * 
+   * @return the frames, the most recently active one last
+   */
+  public List<ApplicationFrame<?>> getOpenFrames() {
+    return Collections.unmodifiableList(new ArrayList<>(this.frames));
+  }
+
+  /**
+   * @return the most recently active frame or null if there is none
+   */
+  public ApplicationFrame<?> getActiveFrame() {
+    List<ApplicationFrame<?>> frames = getOpenFrames();
+    return frames.isEmpty() ? null : frames.get(frames.size() - 1);
+  }
+
   /**
    * Returns application's name.
    */
@@ -246,6 +637,33 @@ public abstract class Application {
     return null;
   }
 
+  /**
+   * Indicates if a splash window should be shown while the application starts. It is shown as soon
+   * as the application is instantiated, before {@link #preInit()}, and closed once the main frame
+   * is visible. It is not shown if a native splash screen has been specified on the command line or
+   * in the jar's manifest.
+   */
+  protected boolean hasSplashScreen() {
+    return false;
+  }
+
+  /**
+   * Indicates if only one instance of this application may run at a time for the current user. If
+   * true, launching the application again forwards the command-line parameters to the running
+   * instance through a {@link NewInstanceEvent} and exits immediately.
+   */
+  protected boolean isSingleInstance() {
+    return false;
+  }
+
+  /**
+   * Returns the path of the image shown in the splash window. Defaults to the application's icon if
+   * empty.
+   */
+  public Optional<String> getSplashImage() {
+    return Optional.empty();
+  }
+
   /**
    * Returns application's icon path.
    */
@@ -289,6 +707,21 @@ public abstract class Application {
     return this.defaultLanguage;
   }
 
+  /**
+   * Switches the application to the given language without restarting it. The language file is
+   * loaded, the config is updated and all objects registered to the {@link LocalizationRegistry}
+   * are relocalized. Must be called from the EDT.
+   * 
+   * @param config the config
+   * @param language the new language
+   * @throws IOException if the language file could not be loaded; the current language is kept
+   */
+  public void changeLanguage(WritableConfig config, Language language) throws IOException {
+    initLanguage(this, language);
+    config.setLanguage(language);
+    LocalizationRegistry.relocalize();
+  }
+
   /**
    * Returns the language matching the given code.
    * 
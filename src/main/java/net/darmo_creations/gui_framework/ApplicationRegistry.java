@@ -18,19 +18,52 @@
  */
 package net.darmo_creations.gui_framework;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
-import net.darmo_creations.utils.events.EventsBus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.darmo_creations.gui_framework.events.EventsBus;
+import net.darmo_creations.gui_framework.lifecycle.LifecycleManager;
+import net.darmo_creations.gui_framework.startup.StartupProfiler;
 
 /**
  * Applications must register itself to this registry to be started. Only one application can be
  * registered.
+ * <p>
+ * This registry also holds the application's services. A service is a singleton identified by its
+ * type and created by a factory the first time it is requested, from any thread. Idle services are
+ * additionally created in the background once the main frame is visible so that they are ready
+ * when needed without delaying startup. Services that depend on each other during their creation
+ * are reported instead of deadlocking, whether they are requested from one thread or several.
+ * </p>
  *
  * @author Damien Vergnet
  */
 public final class ApplicationRegistry {
-  /** Application's main event bus */
+  /**
+   * Application's main event bus. Listeners that do not live as long as the application, e.g.
+   * dialogs or anything tied to a frame, should be unregistered or registered weakly.
+   */
   public static final EventsBus EVENTS_BUS = new EventsBus();
+  /** Application's lifecycle manager */
+  public static final LifecycleManager LIFECYCLE = new LifecycleManager();
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ApplicationRegistry.class);
+
+  private static final Map<Class<?>, Service<?>> SERVICES = new ConcurrentHashMap<>();
+  /** Guards the creation state of all services */
+  private static final Object CREATION_LOCK = new Object();
+  /** The service each thread is waiting for while another thread creates it */
+  private static final Map<Thread, Service<?>> WAITING = new HashMap<>();
+  private static volatile boolean idleServicesStarted;
 
   private static Application application;
 
@@ -56,5 +89,185 @@ public final class ApplicationRegistry {
     return application;
   }
 
+  /**
+   * Registers a service created on first use. A service that has not been created yet may be
+   * replaced by registering another factory for the same type.
+   * 
+   * @param type the service's type
+   * @param factory the function that creates the service
+   * @throws IllegalStateException if a service of this type has already been created
+   */
+  public static <T> void registerService(Class<T> type, Supplier<? extends T> factory) {
+    register(type, factory, false);
+  }
+
+  /**
+   * Registers a service created on first use or in the background as soon as the application is
+   * running, whichever comes first.
+   * 
+   * @param type the service's type
+   * @param factory the function that creates the service; it must be thread-safe
+   * @throws IllegalStateException if a service of this type has already been created
+   */
+  public static <T> void registerIdleService(Class<T> type, Supplier<? extends T> factory) {
+    register(type, factory, true);
+  }
+
+  private static <T> void register(Class<T> type, Supplier<? extends T> factory, boolean idle) {
+    Service<T> service = new Service<>(Objects.requireNonNull(type), Objects.requireNonNull(factory), idle);
+    SERVICES.compute(type, (k, old) -> {
+      if (old != null && old.instance != null)
+        throw new IllegalStateException("service " + type.getName() + " already created");
+      return service;
+    });
+    if (idle && idleServicesStarted)
+      startIdleServices(Collections.singletonList(service));
+  }
+
+  /**
+   * Returns the service of the given type, creating it if necessary.
+   * 
+   * @param type the service's type
+   * @return the service
+   * @throws IllegalArgumentException if no service of this type is registered
+   * @throws IllegalStateException if services depend on each other during creation
+   */
+  public static <T> T getService(Class<T> type) {
+    Service<?> service = SERVICES.get(type);
+    if (service == null)
+      throw new IllegalArgumentException("no service registered for " + type.getName());
+    return type.cast(service.get());
+  }
+
+  /**
+   * Tells if a service of the given type is registered.
+   */
+  public static boolean isServiceRegistered(Class<?> type) {
+    return SERVICES.containsKey(type);
+  }
+
+  /**
+   * Returns the time it took to create each service that has been created so far.
+   * 
+   * @return the durations in nanoseconds
+   */
+  public static Map<Class<?>, Long> getServicesInitTimes() {
+    Map<Class<?>, Long> times = new HashMap<>();
+    SERVICES.forEach((type, service) -> {
+      if (service.instance != null)
+        times.put(type, service.initTime);
+    });
+    return Collections.unmodifiableMap(times);
+  }
+
+  /**
+   * Creates all idle services in the background. Idle services registered afterwards are created
+   * immediately in the background.
+   */
+  static void startIdleServices() {
+    idleServicesStarted = true;
+    List<Service<?>> services = new ArrayList<>();
+    SERVICES.values().stream().filter(s -> s.idle).forEach(services::add);
+    startIdleServices(services);
+  }
+
+  private static void startIdleServices(List<Service<?>> services) {
+    if (services.isEmpty())
+      return;
+    Thread t = new Thread(() -> {
+      for (Service<?> service : services) {
+        try {
+          service.get();
+        }
+        catch (RuntimeException ex) {
+          LOGGER.error("Could not create service {}", service.type.getName(), ex);
+        }
+      }
+    }, "idle-services");
+    t.setDaemon(true);
+    t.setPriority(Thread.MIN_PRIORITY);
+    t.start();
+  }
+
   private ApplicationRegistry() {}
+
+  private static class Service<T> {
+    final Class<T> type;
+    final Supplier<? extends T> factory;
+    final boolean idle;
+    volatile T instance;
+    volatile long initTime;
+    /** The thread creating this service; guarded by CREATION_LOCK */
+    private Thread creator;
+
+    Service(Class<T> type, Supplier<? extends T> factory, boolean idle) {
+      this.type = type;
+      this.factory = factory;
+      this.idle = idle;
+    }
+
+    T get() {
+      T instance = this.instance;
+      if (instance != null)
+        return instance;
+
+      Thread current = Thread.currentThread();
+      synchronized (CREATION_LOCK) {
+        boolean interrupted = false;
+        try {
+          while (this.creator != null) {
+            checkCycle(current);
+            WAITING.put(current, this);
+            try {
+              CREATION_LOCK.wait();
+            }
+            catch (InterruptedException __) {
+              interrupted = true;
+            }
+            finally {
+              WAITING.remove(current);
+            }
+          }
+        }
+        finally {
+          if (interrupted)
+            current.interrupt();
+        }
+        if (this.instance != null)
+          return this.instance;
+        this.creator = current;
+      }
+
+      // The factory is called without holding the lock as it may request other services
+      StartupProfiler.Phase phase = StartupProfiler.begin("service." + this.type.getSimpleName());
+      try {
+        long start = System.nanoTime();
+        T value = Objects.requireNonNull(this.factory.get(), "null service " + this.type.getName());
+        this.initTime = System.nanoTime() - start;
+        this.instance = value;
+        LOGGER.debug("Service {} created in {} ms", this.type.getName(), this.initTime / 1_000_000);
+        return value;
+      }
+      finally {
+        phase.end();
+        synchronized (CREATION_LOCK) {
+          this.creator = null;
+          CREATION_LOCK.notifyAll();
+        }
+      }
+    }
+
+    /**
+     * Fails if the thread creating this service is the given one or waits, directly or not, for a
+     * service the given thread is creating. Must be called while holding CREATION_LOCK.
+     */
+    private void checkCycle(Thread thread) {
+      for (Thread t = this.creator; t != null;) {
+        if (t == thread)
+          throw new IllegalStateException("circular dependency on service " + this.type.getName());
+        Service<?> awaited = WAITING.get(t);
+        t = awaited != null ? awaited.creator : null;
+      }
+    }
+  }
 }
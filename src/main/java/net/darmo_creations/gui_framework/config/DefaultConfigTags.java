@@ -19,6 +19,7 @@
 package net.darmo_creations.gui_framework.config;
 
 import net.darmo_creations.gui_framework.config.tags.BooleanTag;
+import net.darmo_creations.gui_framework.config.tags.StringTag;
 
 /**
  * This class provides config keys used by the framework.
@@ -28,6 +29,13 @@ import net.darmo_creations.gui_framework.config.tags.BooleanTag;
 public final class DefaultConfigTags {
   /** Key to check or not updates */
   public static final BooleanTag CHECK_UPDATES = new BooleanTag("check_updates");
+  /**
+   * Key for the look and feel: either a fully qualified class name or {@link #SYSTEM_LOOK_AND_FEEL}
+   */
+  public static final StringTag LOOK_AND_FEEL = new StringTag("look_and_feel");
+
+  /** Value of {@link #LOOK_AND_FEEL} that selects the system look and feel (the default) */
+  public static final String SYSTEM_LOOK_AND_FEEL = "system";
 
   private DefaultConfigTags() {}
 }
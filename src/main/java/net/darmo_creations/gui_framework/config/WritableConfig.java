@@ -18,12 +18,15 @@
  */
 package net.darmo_creations.gui_framework.config;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import net.darmo_creations.gui_framework.config.tags.AbstractTag;
 
@@ -33,23 +36,33 @@ import net.darmo_creations.gui_framework.config.tags.AbstractTag;
  * @author Damien Vergnet
  */
 public class WritableConfig implements Cloneable {
-  private static final Map<AbstractTag<?>, Object> DEFAULT_VALUES = new HashMap<>();
+  /** Concurrent as tags may be registered while the config is saved from another thread */
+  private static final Map<AbstractTag<?>, Object> DEFAULT_VALUES = new ConcurrentHashMap<>();
+  private static final Set<AbstractTag<?>> REGISTERED_TAGS = Collections.unmodifiableSet(DEFAULT_VALUES.keySet());
+  /** Registered tags indexed by their name and value class name */
+  private static final Map<List<String>, AbstractTag<?>> TAGS_BY_NAME = new ConcurrentHashMap<>();
 
   /**
    * Registers a tag and its default value. Values should be unmodifiable to avoid side effects.
+   * Tags should be registered during startup, e.g. in
+   * {@link net.darmo_creations.gui_framework.Application#preInit()}.
    * 
    * @param tag the tag
-   * @param defaultValue its default value
+   * @param defaultValue its default value; may not be null
    */
   public static <T> void registerTag(AbstractTag<T> tag, T defaultValue) {
-    DEFAULT_VALUES.put(tag, defaultValue);
+    DEFAULT_VALUES.put(tag, Objects.requireNonNull(defaultValue, "null default value for tag " + tag.getName()));
+    TAGS_BY_NAME.put(Arrays.asList(tag.getName(), tag.getValueClass().getName()), tag);
   }
 
   /**
    * Returns all registered tags.
+   * 
+   * @return an unmodifiable view of the registered tags; it can be iterated while tags are
+   *         registered from another thread
    */
   public static Set<AbstractTag<?>> getRegisteredTags() {
-    return new HashSet<>(DEFAULT_VALUES.keySet());
+    return REGISTERED_TAGS;
   }
 
   /**
@@ -57,8 +70,7 @@ public class WritableConfig implements Cloneable {
    */
   @SuppressWarnings("unchecked")
   public static <T extends AbstractTag<?>> Optional<T> getTagFromName(String name, String className) {
-    return (Optional<T>) DEFAULT_VALUES.keySet().stream().filter(
-        k -> k.getName().equals(name) && k.getValueClass().getName().equals(className)).findFirst();
+    return Optional.ofNullable((T) TAGS_BY_NAME.get(Arrays.asList(name, className)));
   }
 
   /**
@@ -19,26 +19,33 @@
 package net.darmo_creations.gui_framework.controllers;
 
 import java.awt.Desktop;
+import java.awt.Frame;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Optional;
 
-import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import net.darmo_creations.gui_framework.Application;
 import net.darmo_creations.gui_framework.ApplicationRegistry;
 import net.darmo_creations.gui_framework.config.DefaultConfigTags;
 import net.darmo_creations.gui_framework.config.WritableConfig;
-import net.darmo_creations.gui_framework.dao.ConfigDao;
 import net.darmo_creations.gui_framework.events.ChangeLanguageEvent;
+import net.darmo_creations.gui_framework.events.DeliveryMode;
+import net.darmo_creations.gui_framework.events.NewInstanceEvent;
+import net.darmo_creations.gui_framework.events.SubscribeEvent;
 import net.darmo_creations.gui_framework.events.UpdateEvent;
 import net.darmo_creations.gui_framework.events.UserEvent;
+import net.darmo_creations.gui_framework.events.UserEventRouter;
 import net.darmo_creations.gui_framework.gui.ApplicationFrame;
+import net.darmo_creations.gui_framework.lifecycle.LifecycleManager;
+import net.darmo_creations.gui_framework.lifecycle.ShutdownReport;
 import net.darmo_creations.gui_framework.util.UpdatesChecker;
 import net.darmo_creations.utils.I18n;
-import net.darmo_creations.utils.JarUtil;
-import net.darmo_creations.utils.events.SubscribeEvent;
 
 /**
  * This is controller handles events from the MainFrame class.
@@ -46,6 +53,8 @@ import net.darmo_creations.utils.events.SubscribeEvent;
  * @author Damien Vergnet
  */
 public class ApplicationController<T extends ApplicationFrame<?>> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ApplicationController.class);
+
   /** The frame */
   protected final T frame;
   /** The configuration */
@@ -65,51 +74,48 @@ public class ApplicationController<T extends ApplicationFrame<?>> {
     this.frame = frame;
     this.config = config;
     this.checkUpdatesEnabled = this.config.getValue(DefaultConfigTags.CHECK_UPDATES);
-    this.updatesChecker = new UpdatesChecker();
+    this.updatesChecker = ApplicationRegistry.getService(UpdatesChecker.class);
   }
 
   /**
-   * Initializes the controller.
+   * Initializes the controller. The handlers of the default user event types are registered to the
+   * frame's {@link UserEventRouter}; subclasses register the handlers of their own types there too.
+   * They are called from {@link #onUserEvent(UserEvent)}, hence after subscribers with a higher
+   * priority, as before.
+   * Updates are checked by the first frame only, the following ones show the state of that check.
    */
   public void init() {
+    UserEventRouter router = this.frame.getUserEventRouter();
+    router.addHandler(UserEvent.DefaultType.HELP, e -> showHelp());
+    router.addHandler(UserEvent.DefaultType.ABOUT, e -> this.frame.showAboutDialog());
+    router.addHandler(UserEvent.DefaultType.EXITING, e -> {
+      if (!exit())
+        e.setCancelled();
+    });
+    router.addHandler(UserEvent.DefaultType.OPEN_UPDATE, e -> openUpdate());
+    router.addHandler(UserEvent.DefaultType.TOGGLE_CHECK_UPDATES, e -> toggleCheckUpdates());
     this.frame.setCheckUpdatesItemSelected(this.config.getValue(DefaultConfigTags.CHECK_UPDATES));
-    this.frame.setUpdateLabelText(ApplicationFrame.CHECKING_UPDATES, null);
-    this.updatesChecker.checkUpdate();
+    if (!this.updatesChecker.isCheckRequested()) {
+      this.frame.setUpdateLabelText(ApplicationFrame.CHECKING_UPDATES, null);
+      this.updatesChecker.checkUpdate();
+    }
+    else {
+      showUpdatesState();
+    }
   }
 
   /**
-   * Called when a UserEvent is fired.
+   * Called when a UserEvent is fired and has not been cancelled by a subscriber with a higher
+   * priority. Routes it to the handlers registered for its type.
    * 
    * @param e the event
+   * @deprecated register handlers to {@link ApplicationFrame#getUserEventRouter()} instead of
+   *             overriding this method
    */
-  @SuppressWarnings("incomplete-switch")
+  @Deprecated
   @SubscribeEvent
   public void onUserEvent(UserEvent e) {
-    if (e.isCancelled()) {
-      return;
-    }
-
-    UserEvent.Type type = e.getType();
-    if (type instanceof UserEvent.DefaultType) {
-      switch ((UserEvent.DefaultType) type) {
-        case HELP:
-          showHelp();
-          break;
-        case ABOUT:
-          this.frame.showAboutDialog();
-          break;
-        case EXITING:
-          if (!exit())
-            e.setCancelled();
-          break;
-        case OPEN_UPDATE:
-          openUpdate();
-          break;
-        case TOGGLE_CHECK_UPDATES:
-          toggleCheckUpdates();
-          break;
-      }
-    }
+    this.frame.getUserEventRouter().onUserEvent(e);
   }
 
   /**
@@ -119,20 +125,35 @@ public class ApplicationController<T extends ApplicationFrame<?>> {
    */
   @SubscribeEvent
   public void onChangeLanguage(ChangeLanguageEvent e) {
-    int choice = this.frame.showConfirmDialog(I18n.getLocalizedString("popup.change_language.confirm.text"));
+    if (e.getLanguage() == this.config.getLanguage()) {
+      return;
+    }
 
-    if (choice == JOptionPane.YES_OPTION) {
-      try {
-        this.config.setLanguage(e.getLanguage());
-        restartApplication();
-      }
-      catch (IOException | URISyntaxException __) {
-        this.frame.showErrorDialog(I18n.getLocalizedString("popup.change_language.restart_error.text"));
-        System.exit(1);
-      }
+    try {
+      ApplicationRegistry.getApplication().changeLanguage(this.config, e.getLanguage());
+    }
+    catch (IOException __) {
+      // The item of the language that failed to load has been selected
+      this.frame.setLanguageItemSelected(this.config.getLanguage());
+      this.frame.showErrorDialog(I18n.getLocalizedString("popup.change_language.error.text"));
     }
   }
 
+  /**
+   * Brings the frame to front if it is the most recently active one.
+   * 
+   * @param e the event
+   */
+  @SubscribeEvent(mode = DeliveryMode.EDT)
+  public void onNewInstance(NewInstanceEvent e) {
+    if (ApplicationRegistry.getApplication().getActiveFrame() != this.frame)
+      return;
+    if ((this.frame.getExtendedState() & Frame.ICONIFIED) != 0)
+      this.frame.setExtendedState(this.frame.getExtendedState() & ~Frame.ICONIFIED);
+    this.frame.toFront();
+    this.frame.requestFocus();
+  }
+
   @SubscribeEvent
   public void onUpdateChecking(UpdateEvent.Checking e) {
     if (!this.checkUpdatesEnabled || !this.config.getValue(DefaultConfigTags.CHECK_UPDATES)) {
@@ -141,22 +162,46 @@ public class ApplicationController<T extends ApplicationFrame<?>> {
     }
   }
 
-  @SubscribeEvent
+  @SubscribeEvent(mode = DeliveryMode.EDT)
   public void onNewUpdate(UpdateEvent.NewUpdate e) {
     Application application = ApplicationRegistry.getApplication();
     this.frame.setUpdateLabelText(ApplicationFrame.NEW_UPDATE, " - " + application.getName() + " " + e.getVersion());
   }
 
-  @SubscribeEvent
+  @SubscribeEvent(mode = DeliveryMode.EDT)
   public void onNoUpdate(UpdateEvent.NoUpdate e) {
     this.frame.setUpdateLabelText(ApplicationFrame.NO_UPDATE, null);
   }
 
-  @SubscribeEvent
+  @SubscribeEvent(mode = DeliveryMode.EDT)
   public void onUpdateCheckFailed(UpdateEvent.CheckFailed e) {
     this.frame.setUpdateLabelText(ApplicationFrame.UPDATES_CHECK_FAILED, null);
   }
 
+  /**
+   * Shows the state of the updates check in the frame's status bar. Results of a check in progress
+   * will be received as events.
+   */
+  private void showUpdatesState() {
+    if (!this.checkUpdatesEnabled || !this.config.getValue(DefaultConfigTags.CHECK_UPDATES)) {
+      this.frame.setUpdateLabelText(ApplicationFrame.UPDATES_BLOCKED, null);
+    }
+    else if (this.updatesChecker.isChecking()) {
+      this.frame.setUpdateLabelText(ApplicationFrame.CHECKING_UPDATES, null);
+    }
+    else {
+      Optional<UpdateEvent> result = this.updatesChecker.getLastResult();
+      if (result.isPresent()) {
+        if (result.get() instanceof UpdateEvent.NewUpdate)
+          onNewUpdate((UpdateEvent.NewUpdate) result.get());
+        else if (result.get() instanceof UpdateEvent.NoUpdate)
+          onNoUpdate((UpdateEvent.NoUpdate) result.get());
+        else if (result.get() instanceof UpdateEvent.CheckFailed)
+          onUpdateCheckFailed((UpdateEvent.CheckFailed) result.get());
+      }
+    }
+  }
+
   /**
    * Opens the help in the browser.
    */
@@ -193,32 +238,36 @@ public class ApplicationController<T extends ApplicationFrame<?>> {
   }
 
   /**
-   * Exits the application. A UserEvent of type UserEvent.DefaultType.EXIT is fired. If it is
-   * cancelled, the application will not exit.
+   * Closes the frame. A UserEvent of type UserEvent.DefaultType.EXIT is fired on the frame's bus.
+   * If it is cancelled, the frame will not close. Otherwise, if other frames are open, this frame
+   * is disposed of. If it was the last one, the frame is hidden immediately and the shutdown tasks
+   * registered to {@link ApplicationRegistry#LIFECYCLE} are executed in the background before the
+   * frame is disposed of.
    * 
-   * @return true if the application exited; false otherwise
+   * @return true if the frame closed; false otherwise
    */
   protected boolean exit() {
+    if (ApplicationRegistry.LIFECYCLE.getState() != LifecycleManager.State.RUNNING)
+      return false;
+
     UserEvent event = new UserEvent(UserEvent.DefaultType.EXIT);
-    ApplicationRegistry.EVENTS_BUS.dispatchEvent(event);
+    this.frame.getEventsBus().dispatchEvent(event);
 
-    if (!event.isCancelled()) {
-      ConfigDao.getInstance().save(this.config);
+    if (!event.isCancelled() && ApplicationRegistry.getApplication().getOpenFrames().size() > 1) {
       this.frame.dispose();
       return true;
     }
-    return false;
-  }
-
-  /**
-   * Restarts the application.
-   */
-  private void restartApplication() throws IOException, URISyntaxException {
-    UserEvent event = new UserEvent(UserEvent.DefaultType.EXITING);
-    ApplicationRegistry.EVENTS_BUS.dispatchEvent(event);
-
     if (!event.isCancelled()) {
-      JarUtil.restartApplication(".jar");
+      this.frame.setVisible(false);
+      Thread t = new Thread(() -> {
+        ShutdownReport report = ApplicationRegistry.LIFECYCLE.shutdown();
+        if (!report.isSuccessful())
+          LOGGER.warn("Some shutdown tasks did not complete: {}", report.getFailures());
+        SwingUtilities.invokeLater(this.frame::dispose);
+      }, "shutdown");
+      t.start();
+      return true;
     }
+    return false;
   }
 }
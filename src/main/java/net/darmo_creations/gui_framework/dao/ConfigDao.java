@@ -19,9 +19,13 @@
 package net.darmo_creations.gui_framework.dao;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Optional;
 
 import javax.xml.parsers.DocumentBuilder;
@@ -50,12 +54,13 @@ import net.darmo_creations.utils.JarUtil;
  * @author Damien Vergnet
  */
 public class ConfigDao {
-  private static ConfigDao instance;
-
+  /**
+   * Returns the {@code ConfigDao} service.
+   * 
+   * @see ApplicationRegistry#getService(Class)
+   */
   public static ConfigDao getInstance() {
-    if (instance == null)
-      instance = new ConfigDao();
-    return instance;
+    return ApplicationRegistry.getService(ConfigDao.class);
   }
 
   /**
@@ -105,7 +110,9 @@ public class ConfigDao {
   }
 
   /**
-   * Saves the given config to the "config.xml" file in the same directory as the jar.
+   * Saves the given config to the "config.xml" file in the same directory as the jar. The config is
+   * first written to a temporary file that then replaces the previous one so that an interrupted
+   * save never leaves a truncated file behind.
    * 
    * @param config the config
    */
@@ -136,12 +143,27 @@ public class ConfigDao {
       doc.appendChild(root);
 
       Transformer transformer = TransformerFactory.newInstance().newTransformer();
-      StreamResult result = new StreamResult(new File(URLDecoder.decode(JarUtil.getJarDir() + "config.xml", "UTF-8")));
-
-      transformer.transform(new DOMSource(doc), result);
+      Path target = new File(URLDecoder.decode(JarUtil.getJarDir() + "config.xml", "UTF-8")).getAbsoluteFile().toPath();
+      // Same directory, hence same file system, for the move to be atomic
+      Path tmp = Files.createTempFile(target.getParent(), "config", ".xml.tmp");
+      try {
+        try (FileOutputStream out = new FileOutputStream(tmp.toFile())) {
+          transformer.transform(new DOMSource(doc), new StreamResult(out));
+          out.getFD().sync();
+        }
+        try {
+          Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (AtomicMoveNotSupportedException __) {
+          Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+      }
+      finally {
+        Files.deleteIfExists(tmp);
+      }
     }
-    catch (ParserConfigurationException | TransformerException | UnsupportedEncodingException ex) {}
+    catch (ParserConfigurationException | TransformerException | IOException ex) {}
   }
 
-  private ConfigDao() {}
+  public ConfigDao() {}
 }
@@ -22,11 +22,12 @@ import net.darmo_creations.gui_framework.config.Language;
 import net.darmo_creations.utils.events.AbstractEvent;
 
 /**
- * This event is fired when changing the language.
+ * This event is fired when changing the language. It is a {@link GlobalEvent} as the language is
+ * shared by all frames.
  *
  * @author Damien Vergnet
  */
-public class ChangeLanguageEvent extends AbstractEvent {
+public class ChangeLanguageEvent extends AbstractEvent implements GlobalEvent {
   private final Language language;
 
   /**
@@ -0,0 +1,115 @@
+/*
+ * Copyright © 2017 Damien Vergnet
+ * 
+ * This file is part of GUI-Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.darmo_creations.gui_framework.events;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+import net.darmo_creations.utils.events.AbstractEvent;
+
+/**
+ * A coalescing policy tells an {@link EventsBus} how to merge events of a given class that are
+ * dispatched in bursts. Instead of being dispatched immediately, such events are kept pending until
+ * the end of the policy's window (or the next EDT tick if there is none); events dispatched in the
+ * meantime with the same key are merged with the pending one. The resulting event is then
+ * dispatched from the EDT.
+ * <p>
+ * Policies are immutable, a new policy is returned by each {@code with} method.
+ * </p>
+ *
+ * @author Damien Vergnet
+ * @see EventsBus#setCoalescingPolicy(Class, CoalescingPolicy)
+ */
+public final class CoalescingPolicy<E extends AbstractEvent> {
+  /**
+   * Returns a policy that keeps only the latest event of the class, until the next EDT tick.
+   */
+  public static <E extends AbstractEvent> CoalescingPolicy<E> latest() {
+    return new CoalescingPolicy<>(e -> e.getClass(), (previous, e) -> e, 0);
+  }
+
+  private final Function<? super E, ?> key;
+  private final BinaryOperator<E> merger;
+  private final long window;
+
+  private CoalescingPolicy(Function<? super E, ?> key, BinaryOperator<E> merger, long window) {
+    this.key = key;
+    this.merger = merger;
+    this.window = window;
+  }
+
+  /**
+   * Returns a policy that only coalesces events with the same key. Events for which the function
+   * returns null are not coalesced, they are dispatched immediately.
+   * 
+   * @param key the function returning the key of an event
+   */
+  public CoalescingPolicy<E> withKey(Function<? super E, ?> key) {
+    return new CoalescingPolicy<>(Objects.requireNonNull(key), this.merger, this.window);
+  }
+
+  /**
+   * Returns a policy that merges events using the given function instead of keeping the latest.
+   * 
+   * @param merger the function receiving the pending event and the new one, in that order
+   */
+  public CoalescingPolicy<E> withMerger(BinaryOperator<E> merger) {
+    return new CoalescingPolicy<>(this.key, Objects.requireNonNull(merger), this.window);
+  }
+
+  /**
+   * Returns a policy that keeps events pending for the given duration after the first one of a
+   * burst instead of until the next EDT tick.
+   * 
+   * @param window the duration
+   * @param unit the duration's unit
+   */
+  public CoalescingPolicy<E> withWindow(long window, TimeUnit unit) {
+    if (window < 0)
+      throw new IllegalArgumentException("negative window");
+    return new CoalescingPolicy<>(this.key, this.merger, unit.toMillis(window));
+  }
+
+  Object getKey(E event) {
+    return this.key.apply(event);
+  }
+
+  E merge(E pending, E event) {
+    return this.merger.apply(pending, event);
+  }
+
+  /**
+   * Runs the given task on the EDT at the end of this policy's window.
+   */
+  void schedule(Runnable task) {
+    if (this.window == 0) {
+      SwingUtilities.invokeLater(task);
+    }
+    else {
+      Timer timer = new Timer((int) Math.min(Integer.MAX_VALUE, this.window), e -> task.run());
+      timer.setRepeats(false);
+      timer.start();
+    }
+  }
+}
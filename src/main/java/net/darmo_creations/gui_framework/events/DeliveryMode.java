@@ -0,0 +1,37 @@
+/*
+ * Copyright © 2017 Damien Vergnet
+ * 
+ * This file is part of GUI-Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.darmo_creations.gui_framework.events;
+
+/**
+ * Threads event subscribers may be called from.
+ *
+ * @author Damien Vergnet
+ */
+public enum DeliveryMode {
+  /** The subscriber is called synchronously on the thread that dispatched the event. */
+  POSTING,
+  /**
+   * The subscriber is called on the Event Dispatch Thread: synchronously if the event is dispatched
+   * from it, otherwise later along with the other pending EDT deliveries in a single
+   * {@code invokeLater} call.
+   */
+  EDT,
+  /** The subscriber is called asynchronously on a shared pool of background threads. */
+  BACKGROUND;
+}
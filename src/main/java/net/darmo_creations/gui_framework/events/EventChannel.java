@@ -0,0 +1,377 @@
+/*
+ * Copyright © 2017 Damien Vergnet
+ * 
+ * This file is part of GUI-Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.darmo_creations.gui_framework.events;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import javax.swing.SwingUtilities;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An event channel carries high-frequency events (progress, telemetry…) from any number of
+ * producers to a single handler without allocating. Events are mutable objects preallocated in a
+ * ring buffer: producers claim a slot, fill it and publish it; the handler receives the published
+ * slots in order, by batches, then they are reused. The {@link EventsBus} remains the way to
+ * dispatch low-rate control events.
+ * <p>
+ * The handler is called either on a dedicated consumer thread ({@link DeliveryMode#BACKGROUND}) or
+ * on the EDT ({@link DeliveryMode#EDT}); in the latter case, a single {@code invokeLater} call
+ * handles all the events published in the meantime, up to the buffer's capacity. When the handler
+ * falls behind and the buffer is full, {@link #next()} waits for a slot to be freed while
+ * {@link #tryNext()} fails immediately. Events must not be kept by the handler once it returns.
+ * </p>
+ * <p>
+ * Primitive values are best published by claiming, filling and publishing the slot directly, which
+ * neither allocates nor boxes:
+ * </p>
+ *
+ * <pre>
+ * long sequence = channel.next();
+ * try {
+ *   channel.get(sequence).setProgress(progress);
+ *   channel.publish(sequence);
+ * }
+ * catch (RuntimeException ex) {
+ *   channel.skip(sequence);
+ *   throw ex;
+ * }
+ * </pre>
+ * <p>
+ * Object values may be published through {@link #publish(BiConsumer, Object)}, passing the value
+ * as an argument avoids allocating a capturing lambda for each event.
+ * </p>
+ *
+ * @author Damien Vergnet
+ */
+public final class EventChannel<T> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(EventChannel.class);
+
+  /** Time a producer waits for a free slot before checking the buffer again */
+  private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+  /** Maximum time the idle consumer sleeps, it is woken up by producers */
+  private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+  /** Time the consumer of a closed channel waits for a claimed slot to be published before skipping it */
+  private static final long CLOSE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final String name;
+  private final Object[] slots;
+  private final int mask, indexShift;
+  /** Round of the sequence last published in each slot */
+  private final AtomicIntegerArray published;
+  /** Slots published through {@link #skip(long)}; written before and read after {@link #published} */
+  private final boolean[] skipped;
+  /** Last claimed sequence */
+  private final AtomicLong claimed;
+  /** Last consumed sequence; the slots of the following sequences may be reused once it moves */
+  private final AtomicLong consumed;
+  private final Handler<? super T> handler;
+  private final DeliveryMode mode;
+  private final Thread consumer;
+  private final AtomicBoolean drainScheduled;
+  private volatile boolean closed;
+
+  /**
+   * Creates a channel and starts its consumer.
+   *
+   * @param name the channel's name, used to name its thread
+   * @param capacity the number of slots, a power of 2
+   * @param factory creates the slots
+   * @param handler the handler of published events
+   * @param mode {@link DeliveryMode#BACKGROUND} to call the handler on a dedicated thread or
+   *          {@link DeliveryMode#EDT}
+   * @throws IllegalArgumentException if the capacity is not a power of 2 or the mode is
+   *           {@link DeliveryMode#POSTING}
+   */
+  public EventChannel(String name, int capacity, Supplier<? extends T> factory, Handler<? super T> handler, DeliveryMode mode) {
+    if (capacity < 1 || Integer.bitCount(capacity) != 1)
+      throw new IllegalArgumentException("capacity must be a power of 2");
+    if (mode == DeliveryMode.POSTING)
+      throw new IllegalArgumentException("unsupported mode " + mode);
+    this.name = Objects.requireNonNull(name);
+    this.slots = new Object[capacity];
+    for (int i = 0; i < capacity; i++)
+      this.slots[i] = factory.get();
+    this.mask = capacity - 1;
+    this.indexShift = Integer.numberOfTrailingZeros(capacity);
+    this.published = new AtomicIntegerArray(capacity);
+    for (int i = 0; i < capacity; i++)
+      this.published.set(i, -1);
+    this.skipped = new boolean[capacity];
+    this.claimed = new AtomicLong(-1);
+    this.consumed = new AtomicLong(-1);
+    this.handler = Objects.requireNonNull(handler);
+    this.mode = mode;
+    this.drainScheduled = new AtomicBoolean();
+    if (mode == DeliveryMode.BACKGROUND) {
+      this.consumer = new Thread(this::consume, "channel-" + name);
+      this.consumer.setDaemon(true);
+      this.consumer.start();
+    }
+    else {
+      this.consumer = null;
+    }
+  }
+
+  /**
+   * @return this channel's name
+   */
+  public String getName() {
+    return this.name;
+  }
+
+  /**
+   * @return the number of slots
+   */
+  public int getCapacity() {
+    return this.slots.length;
+  }
+
+  /**
+   * @return the number of slots that can be claimed without waiting
+   */
+  public int getRemainingCapacity() {
+    return (int) (this.slots.length - (this.claimed.get() - this.consumed.get()));
+  }
+
+  /**
+   * Claims the next slot, waiting for the handler to free one if the buffer is full. The slot must
+   * then be filled through {@link #get(long)} and published through {@link #publish(long)}, or
+   * through {@link #skip(long)} if it could not be filled.
+   *
+   * @return the slot's sequence
+   * @throws IllegalStateException if the channel is closed or if the buffer is full while this
+   *           method is called on the EDT and the handler runs on the EDT
+   */
+  public long next() {
+    long sequence;
+    while ((sequence = tryNext()) < 0) {
+      if (this.mode == DeliveryMode.EDT && SwingUtilities.isEventDispatchThread())
+        throw new IllegalStateException("buffer full, the EDT cannot wait for itself");
+      LockSupport.parkNanos(PARK_NANOS);
+    }
+    return sequence;
+  }
+
+  /**
+   * Claims the next slot if there is one available.
+   *
+   * @return the slot's sequence or -1 if the buffer is full
+   * @throws IllegalStateException if the channel is closed
+   * @see #next()
+   */
+  public long tryNext() {
+    if (this.closed)
+      throw new IllegalStateException("channel closed");
+    long current;
+    do {
+      current = this.claimed.get();
+      if (current + 1 - this.slots.length > this.consumed.get())
+        return -1;
+    } while (!this.claimed.compareAndSet(current, current + 1));
+    return current + 1;
+  }
+
+  /**
+   * Returns the slot of a claimed sequence.
+   *
+   * @param sequence the sequence
+   * @return the slot
+   */
+  @SuppressWarnings("unchecked")
+  public T get(long sequence) {
+    return (T) this.slots[(int) sequence & this.mask];
+  }
+
+  /**
+   * Publishes a filled slot, making it available to the handler.
+   *
+   * @param sequence the slot's sequence
+   */
+  public void publish(long sequence) {
+    this.published.lazySet((int) sequence & this.mask, (int) (sequence >>> this.indexShift));
+    if (this.consumer != null)
+      LockSupport.unpark(this.consumer);
+    else if (this.drainScheduled.compareAndSet(false, true))
+      SwingUtilities.invokeLater(this::drainOnEdt);
+  }
+
+  /**
+   * Publishes a claimed slot without handling it, e.g. because filling it failed. Every claimed slot
+   * must be published or skipped, the following ones are not handled until then.
+   *
+   * @param sequence the slot's sequence
+   */
+  public void skip(long sequence) {
+    this.skipped[(int) sequence & this.mask] = true;
+    publish(sequence);
+  }
+
+  /**
+   * Claims a slot, waiting if the buffer is full, fills it and publishes it. If the writer throws an
+   * exception, the slot is skipped.
+   *
+   * @param writer fills the slot with the value
+   * @param value the value
+   * @see #next()
+   */
+  public <A> void publish(BiConsumer<? super T, ? super A> writer, A value) {
+    write(next(), writer, value);
+  }
+
+  /**
+   * Claims a slot if there is one available, fills it and publishes it. If the writer throws an
+   * exception, the slot is skipped.
+   *
+   * @param writer fills the slot with the value
+   * @param value the value
+   * @return false if the buffer is full
+   * @see #tryNext()
+   */
+  public <A> boolean tryPublish(BiConsumer<? super T, ? super A> writer, A value) {
+    long sequence = tryNext();
+    if (sequence < 0)
+      return false;
+    write(sequence, writer, value);
+    return true;
+  }
+
+  private <A> void write(long sequence, BiConsumer<? super T, ? super A> writer, A value) {
+    boolean written = false;
+    try {
+      writer.accept(get(sequence), value);
+      written = true;
+    }
+    finally {
+      if (written)
+        publish(sequence);
+      else
+        skip(sequence);
+    }
+  }
+
+  /**
+   * Closes this channel. Events published before are still handled, then the consumer stops. Slots
+   * claimed but still not published a second after are skipped.
+   */
+  public void close() {
+    this.closed = true;
+    if (this.consumer != null)
+      LockSupport.unpark(this.consumer);
+  }
+
+  /**
+   * @return true if this channel has been closed
+   */
+  public boolean isClosed() {
+    return this.closed;
+  }
+
+  /**
+   * Handles the published events following the last consumed one, in a single batch.
+   *
+   * @return the number of handled events
+   */
+  private int drain() {
+    long first = this.consumed.get() + 1;
+    long last = first - 1;
+    long claimed = this.claimed.get();
+    // Concurrent producers may publish out of order, the batch stops at the first gap
+    while (last < claimed && this.published.get((int) (last + 1) & this.mask) == (int) ((last + 1) >>> this.indexShift))
+      last++;
+    long lastHandled = last;
+    while (lastHandled >= first && this.skipped[(int) lastHandled & this.mask])
+      lastHandled--;
+
+    for (long sequence = first; sequence <= last; sequence++) {
+      int index = (int) sequence & this.mask;
+      if (this.skipped[index]) {
+        this.skipped[index] = false;
+        continue;
+      }
+      try {
+        this.handler.onEvent(get(sequence), sequence, sequence == lastHandled);
+      }
+      catch (RuntimeException ex) {
+        LOGGER.error("Exception in handler of channel " + this.name, ex);
+      }
+    }
+    this.consumed.lazySet(last);
+    return (int) (last - first + 1);
+  }
+
+  private void consume() {
+    boolean closing = false;
+    long closeDeadline = 0;
+    while (true) {
+      if (drain() == 0) {
+        if (this.closed) {
+          long consumed = this.consumed.get();
+          if (consumed == this.claimed.get())
+            break;
+          // A producer may never publish its slot, do not wait for it forever
+          long now = System.nanoTime();
+          if (!closing) {
+            closing = true;
+            closeDeadline = now + CLOSE_TIMEOUT_NANOS;
+          }
+          else if (now - closeDeadline >= 0) {
+            LOGGER.warn("Channel {} closed, skipping unpublished event {}", this.name, consumed + 1);
+            this.consumed.lazySet(consumed + 1);
+            continue;
+          }
+        }
+        // A permit given by publish() in the meantime makes this call return immediately
+        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+      }
+    }
+  }
+
+  private void drainOnEdt() {
+    // Reset before draining so that events published in the meantime schedule a new drain
+    this.drainScheduled.set(false);
+    drain();
+  }
+
+  /**
+   * Handles the events of a channel.
+   *
+   * @author Damien Vergnet
+   */
+  @FunctionalInterface
+  public interface Handler<T> {
+    /**
+     * Called for each published event.
+     *
+     * @param event the event; it is reused once this method returns
+     * @param sequence the event's sequence
+     * @param endOfBatch true if it is the last event available at that time, e.g. to refresh a
+     *          component only once per batch
+     */
+    void onEvent(T event, long sequence, boolean endOfBatch);
+  }
+}
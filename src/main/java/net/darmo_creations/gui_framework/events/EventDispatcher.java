@@ -0,0 +1,114 @@
+/*
+ * Copyright © 2017 Damien Vergnet
+ * 
+ * This file is part of GUI-Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.darmo_creations.gui_framework.events;
+
+import java.util.List;
+
+import net.darmo_creations.utils.events.AbstractEvent;
+
+/**
+ * An event dispatcher describes the subscribers of a listener class and calls them without
+ * reflection. Dispatchers are generated at compile time by the framework's annotation processor
+ * ({@code net.darmo_creations.gui_framework.events.processor.SubscribeEventProcessor}) and looked up
+ * through {@link java.util.ServiceLoader} when a listener of this exact class is registered; the
+ * bus falls back to reflection for listener classes without a dispatcher.
+ *
+ * @author Damien Vergnet
+ */
+public interface EventDispatcher {
+  /**
+   * @return the listener class
+   */
+  Class<?> getListenerClass();
+
+  /**
+   * @return the listener class' subscribers, all its annotated public methods (inherited ones
+   *         included)
+   */
+  List<Handler> getHandlers();
+
+  /**
+   * Calls a subscriber method on a listener. Invokers must not reference listeners so that they can
+   * be weakly held.
+   *
+   * @author Damien Vergnet
+   */
+  @FunctionalInterface
+  interface Invoker {
+    void invoke(Object listener, AbstractEvent event) throws Throwable;
+  }
+
+  /**
+   * Describes a subscriber method.
+   *
+   * @author Damien Vergnet
+   */
+  final class Handler {
+    private final String methodName;
+    private final Class<? extends AbstractEvent> eventType;
+    private final DeliveryMode mode;
+    private final int priority;
+    private final boolean receiveCancelled;
+    private final Invoker invoker;
+
+    /**
+     * Creates a handler.
+     *
+     * @param methodName the method's name
+     * @param eventType the method's parameter type
+     * @param mode the delivery mode
+     * @param priority the priority
+     * @param receiveCancelled whether the method receives cancelled events
+     * @param invoker the invoker calling the method
+     */
+    public Handler(String methodName, Class<? extends AbstractEvent> eventType, DeliveryMode mode, int priority, boolean receiveCancelled,
+        Invoker invoker) {
+      this.methodName = methodName;
+      this.eventType = eventType;
+      this.mode = mode;
+      this.priority = priority;
+      this.receiveCancelled = receiveCancelled;
+      this.invoker = invoker;
+    }
+
+    public String getMethodName() {
+      return this.methodName;
+    }
+
+    public Class<? extends AbstractEvent> getEventType() {
+      return this.eventType;
+    }
+
+    public DeliveryMode getMode() {
+      return this.mode;
+    }
+
+    public int getPriority() {
+      return this.priority;
+    }
+
+    public boolean isReceiveCancelled() {
+      return this.receiveCancelled;
+    }
+
+    public Invoker getInvoker() {
+      return this.invoker;
+    }
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright © 2017 Damien Vergnet
+ * 
+ * This file is part of GUI-Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.darmo_creations.gui_framework.events;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds the generated {@link EventDispatcher}s, loaded once from the context class loader the first
+ * time a listener is registered.
+ *
+ * @author Damien Vergnet
+ */
+final class EventDispatchers {
+  private static final Logger LOGGER = LoggerFactory.getLogger(EventDispatchers.class);
+
+  private static final Map<Class<?>, EventDispatcher> DISPATCHERS = load();
+
+  /**
+   * Returns the generated dispatcher of the given listener class.
+   *
+   * @param listenerClass the listener's exact class
+   * @return the dispatcher or an empty optional if none was generated for this class
+   */
+  static Optional<EventDispatcher> get(Class<?> listenerClass) {
+    return Optional.ofNullable(DISPATCHERS.get(listenerClass));
+  }
+
+  private static Map<Class<?>, EventDispatcher> load() {
+    Map<Class<?>, EventDispatcher> dispatchers = new HashMap<>();
+    Iterator<EventDispatcher> it = ServiceLoader.load(EventDispatcher.class).iterator();
+    while (true) {
+      try {
+        if (!it.hasNext())
+          break;
+        EventDispatcher dispatcher = it.next();
+        dispatchers.put(dispatcher.getListenerClass(), dispatcher);
+      }
+      catch (ServiceConfigurationError ex) {
+        // Stale entry left by an incremental build, the listener falls back to reflection
+        LOGGER.debug("Could not load an event dispatcher", ex);
+      }
+    }
+    LOGGER.debug("Loaded {} event dispatchers", dispatchers.size());
+    return Collections.unmodifiableMap(dispatchers);
+  }
+
+  private EventDispatchers() {}
+}
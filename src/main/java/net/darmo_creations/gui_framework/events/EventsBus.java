@@ -0,0 +1,761 @@
+/*
+ * Copyright © 2017 Damien Vergnet
+ * 
+ * This file is part of GUI-Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.darmo_creations.gui_framework.events;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javax.swing.SwingUtilities;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.darmo_creations.gui_framework.events.EventDispatcher.Invoker;
+import net.darmo_creations.utils.events.AbstractEvent;
+
+/**
+ * An events bus dispatches events to the methods annotated with {@link SubscribeEvent} (or
+ * {@link net.darmo_creations.utils.events.SubscribeEvent}) of the registered listeners. Annotated
+ * methods must be public and have a single parameter whose type extends {@link AbstractEvent};
+ * they receive all events assignable to this type.
+ * <p>
+ * Subscribers are called by decreasing priority, then in registration order (by method name for
+ * methods of the same listener). Once an event has been cancelled, it is only delivered to the
+ * subscribers that declared {@link SubscribeEvent#receiveCancelled()}; methods annotated with
+ * {@link net.darmo_creations.utils.events.SubscribeEvent} always receive cancelled events.
+ * </p>
+ * <p>
+ * Annotated methods are bound once when the listener is registered, dispatching an event does not
+ * use reflection. Listener classes compiled with
+ * {@code net.darmo_creations.gui_framework.events.processor.SubscribeEventProcessor} have a
+ * generated {@link EventDispatcher}, registering them does not use reflection either. Exceptions
+ * thrown by subscribers called on the posting thread are propagated to the caller of
+ * {@link #dispatchEvent(AbstractEvent)} without being wrapped; those thrown by subscribers called
+ * asynchronously (see {@link DeliveryMode}) are logged. Asynchronous subscribers cannot cancel an
+ * event for the poster.
+ * </p>
+ * <p>
+ * The bus maintains an index from each dispatched event class to the subscribers interested in it
+ * (subscribers of its superclasses included), so dispatching only touches these subscribers. The
+ * index is updated when a listener is registered or unregistered.
+ * </p>
+ * <p>
+ * Buses form a hierarchy: child buses scoped to a frame, dialog or document are created through
+ * {@link #createChild()}. An event dispatched on a bus is delivered to its subscribers then to the
+ * ones of its descendants. Events implementing {@link GlobalEvent} are then also delivered to the
+ * subscribers of its ancestors; other events never leave the scope they are dispatched in. Closing
+ * a bus drops all its listeners and children at once.
+ * </p>
+ * <p>
+ * Listeners registered through {@link #registerWeak(Object)} are only weakly referenced by the bus,
+ * they are automatically unregistered once they have been garbage collected.
+ * </p>
+ * <p>
+ * Events of classes with a {@link CoalescingPolicy} are not dispatched immediately but merged with
+ * the following ones of the same key, then dispatched from the EDT.
+ * </p>
+ * <p>
+ * Dispatch observers see every event dispatched on a bus or its descendants, e.g. to record them
+ * (see {@link net.darmo_creations.gui_framework.events.journal.EventRecorder}).
+ * </p>
+ * <p>
+ * The bus records the number and durations of the invocations of each subscriber, available
+ * through {@link #getMetrics()}. Subscribers taking longer than the slow threshold on the EDT are
+ * logged.
+ * </p>
+ * <p>
+ * This class is thread-safe: listeners may be registered, unregistered and events dispatched from
+ * any thread. Registering or unregistering a listener publishes new immutable subscriber arrays;
+ * dispatching reads the current arrays without locking, thus a dispatch in progress is not affected
+ * by concurrent changes and listeners registered during a dispatch do not receive its event. A
+ * listener unregistered during a dispatch may still receive it if its subscriber was already
+ * reached.
+ * </p>
+ *
+ * @author Damien Vergnet
+ */
+public final class EventsBus {
+  private static final Logger LOGGER = LoggerFactory.getLogger(EventsBus.class);
+
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+  private static final MethodType INVOKER_TYPE = MethodType.methodType(void.class, Object.class, AbstractEvent.class);
+
+  private static final Subscriber[] NO_SUBSCRIBERS = {};
+  private static final Comparator<Subscriber> BY_PRIORITY = (s1, s2) -> Integer.compare(s2.priority, s1.priority);
+  /** Default slow threshold in milliseconds, about one frame at 60 Hz */
+  private static final long DEFAULT_SLOW_THRESHOLD = 16;
+
+  private final EventsBus parent;
+  private final List<EventsBus> children;
+  private volatile boolean closed;
+  /** Guards the modifications of the listeners and index; never held while dispatching */
+  private final Object lock;
+  /** Registered listeners, in registration order. Arrays are never modified. */
+  private volatile Listener[] listeners;
+  /** Subscribers for each event class, by priority. Arrays are never modified. */
+  private final Map<Class<?>, Subscriber[]> index;
+  private final Map<Class<?>, CoalescingPolicy<?>> coalescingPolicies;
+  private final List<Consumer<? super AbstractEvent>> observers;
+  /** Coalesced events waiting to be dispatched; guarded by itself */
+  private final Map<List<?>, AbstractEvent> pendingEvents;
+  private volatile long slowThreshold;
+  /** Weak references of the collected listeners */
+  private final ReferenceQueue<Object> staleReferences;
+
+  /**
+   * Creates an empty root bus.
+   */
+  public EventsBus() {
+    this(null);
+  }
+
+  private EventsBus(EventsBus parent) {
+    this.parent = parent;
+    this.children = new CopyOnWriteArrayList<>();
+    this.lock = new Object();
+    this.listeners = new Listener[0];
+    this.index = new ConcurrentHashMap<>();
+    this.coalescingPolicies = new ConcurrentHashMap<>();
+    this.observers = new CopyOnWriteArrayList<>();
+    this.pendingEvents = new HashMap<>();
+    this.slowThreshold = TimeUnit.MILLISECONDS.toNanos(DEFAULT_SLOW_THRESHOLD);
+    this.staleReferences = new ReferenceQueue<>();
+  }
+
+  /**
+   * Creates a child bus. It receives the events dispatched on this bus and propagates its
+   * {@link GlobalEvent}s to this bus. The child's settings (slow threshold, coalescing policies) are
+   * independent from this bus' ones.
+   * 
+   * @return the new bus
+   * @throws IllegalStateException if this bus is closed
+   */
+  public EventsBus createChild() {
+    if (this.closed)
+      throw new IllegalStateException("bus closed");
+    EventsBus child = new EventsBus(this);
+    this.children.add(child);
+    return child;
+  }
+
+  /**
+   * @return this bus' parent or an empty optional if it is a root bus
+   */
+  public Optional<EventsBus> getParent() {
+    return Optional.ofNullable(this.parent);
+  }
+
+  /**
+   * Closes this bus and all its descendants: listeners are unregistered, the bus is detached from
+   * its parent and events dispatched on it afterwards are ignored.
+   */
+  public void close() {
+    if (this.closed)
+      return;
+    this.closed = true;
+    this.children.forEach(EventsBus::close);
+    this.children.clear();
+    if (this.parent != null)
+      this.parent.children.remove(this);
+    synchronized (this.lock) {
+      Set<Listener> listeners = Collections.newSetFromMap(new IdentityHashMap<>());
+      Collections.addAll(listeners, this.listeners);
+      removeListeners(listeners);
+    }
+  }
+
+  /**
+   * @return true if this bus has been closed
+   */
+  public boolean isClosed() {
+    return this.closed;
+  }
+
+  /**
+   * Sets the duration above which subscribers called on the EDT are logged as slow. The default is
+   * 16 ms.
+   * 
+   * @param threshold the duration
+   * @param unit the duration's unit
+   */
+  public void setSlowThreshold(long threshold, TimeUnit unit) {
+    this.slowThreshold = unit.toNanos(threshold);
+  }
+
+  /**
+   * Returns the invocation statistics of the subscribers of all registered listeners.
+   * 
+   * @return the statistics, in registration order
+   */
+  public List<SubscriberMetrics> getMetrics() {
+    List<SubscriberMetrics> metrics = new ArrayList<>();
+    for (Listener listener : this.listeners) {
+      for (Subscriber subscriber : listener.subscribers)
+        metrics.add(subscriber.metrics);
+    }
+    return Collections.unmodifiableList(metrics);
+  }
+
+  /**
+   * Resets the invocation statistics of all subscribers.
+   */
+  public void resetMetrics() {
+    getMetrics().forEach(SubscriberMetrics::reset);
+  }
+
+  /**
+   * Sets the coalescing policy of the given event class. It applies to events of this exact class,
+   * not to its subclasses.
+   * 
+   * @param eventClass the event class
+   * @param policy the policy; null to dispatch events of this class immediately again
+   */
+  public <E extends AbstractEvent> void setCoalescingPolicy(Class<E> eventClass, CoalescingPolicy<E> policy) {
+    if (policy == null)
+      this.coalescingPolicies.remove(eventClass);
+    else
+      this.coalescingPolicies.put(eventClass, policy);
+  }
+
+  /**
+   * Adds an observer notified of every event dispatched on this bus or one of its descendants,
+   * before it is delivered. Coalesced events are observed once merged. Observers are called on the
+   * dispatching thread, they must be fast and must not throw exceptions.
+   * 
+   * @param observer the observer
+   */
+  public void addDispatchObserver(Consumer<? super AbstractEvent> observer) {
+    this.observers.add(Objects.requireNonNull(observer));
+  }
+
+  /**
+   * Removes a dispatch observer.
+   * 
+   * @param observer the observer
+   */
+  public void removeDispatchObserver(Consumer<? super AbstractEvent> observer) {
+    this.observers.remove(observer);
+  }
+
+  /**
+   * Registers a listener. Registering a listener that is already registered has no effect.
+   * 
+   * @param listener the listener
+   * @throws IllegalArgumentException if an annotated method does not have exactly one parameter
+   *           extending {@link AbstractEvent}
+   */
+  public void register(Object listener) {
+    register(listener, false);
+  }
+
+  /**
+   * Registers a listener without preventing it from being garbage collected. Once collected, it is
+   * unregistered automatically. Registering a listener that is already registered has no effect.
+   * <p>
+   * The listener must be referenced elsewhere, e.g. by its frame, or it will stop receiving events
+   * at any time. Lambdas and anonymous classes only referenced by the bus are typical mistakes.
+   * </p>
+   * 
+   * @param listener the listener
+   * @throws IllegalArgumentException if an annotated method does not have exactly one parameter
+   *           extending {@link AbstractEvent}
+   */
+  public void registerWeak(Object listener) {
+    register(listener, true);
+  }
+
+  /**
+   * Unregisters a listener. It does not receive events dispatched afterwards; asynchronous
+   * deliveries already scheduled still happen.
+   * 
+   * @param listener the listener
+   * @return true if the listener was registered
+   */
+  public boolean unregister(Object listener) {
+    purgeStaleListeners();
+    synchronized (this.lock) {
+      for (Listener l : this.listeners) {
+        if (l.get() == listener) {
+          removeListeners(Collections.singleton(l));
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private void register(Object listener, boolean weak) {
+    Objects.requireNonNull(listener);
+    if (this.closed)
+      throw new IllegalStateException("bus closed");
+    purgeStaleListeners();
+    for (Listener l : this.listeners) {
+      if (l.get() == listener)
+        return;
+    }
+
+    // Binding is done outside of the lock, it may take a while for large listeners
+    Listener l = weak ? new Listener(new WeakReference<>(listener, this.staleReferences)) : new Listener(listener);
+
+    Optional<EventDispatcher> dispatcher = EventDispatchers.get(listener.getClass());
+    List<Subscriber> subscribers = dispatcher.isPresent() ? createSubscribers(l, listener.getClass(), dispatcher.get())
+        : createSubscribers(l, listener.getClass());
+    l.subscribers = Collections.unmodifiableList(subscribers);
+
+    synchronized (this.lock) {
+      if (this.closed)
+        throw new IllegalStateException("bus closed");
+      // The same listener may have been registered concurrently
+      for (Listener other : this.listeners) {
+        if (other.get() == listener)
+          return;
+      }
+      Listener[] listeners = Arrays.copyOf(this.listeners, this.listeners.length + 1);
+      listeners[listeners.length - 1] = l;
+      this.listeners = listeners;
+
+      this.index.replaceAll((eventType, current) -> {
+        List<Subscriber> added = new ArrayList<>();
+        for (Subscriber subscriber : subscribers) {
+          if (subscriber.eventType.isAssignableFrom(eventType))
+            added.add(subscriber);
+        }
+        if (added.isEmpty())
+          return current;
+        Subscriber[] updated = Arrays.copyOf(current, current.length + added.size());
+        for (int i = 0; i < added.size(); i++)
+          updated[current.length + i] = added.get(i);
+        // Stable sort, subscribers with the same priority stay in registration order
+        Arrays.sort(updated, BY_PRIORITY);
+        return updated;
+      });
+    }
+  }
+
+  /**
+   * Creates the subscribers of a listener by looking for its annotated methods.
+   */
+  private static List<Subscriber> createSubscribers(Listener l, Class<?> listenerClass) {
+    List<Subscriber> subscribers = new ArrayList<>();
+    for (Method method : listenerClass.getMethods()) {
+      DeliveryMode mode = null;
+      int priority = 0;
+      boolean receiveCancelled = true;
+      SubscribeEvent annotation = method.getAnnotation(SubscribeEvent.class);
+      if (annotation != null) {
+        mode = annotation.mode();
+        priority = annotation.priority();
+        receiveCancelled = annotation.receiveCancelled();
+      }
+      else if (method.isAnnotationPresent(net.darmo_creations.utils.events.SubscribeEvent.class)) {
+        mode = DeliveryMode.POSTING;
+      }
+
+      if (mode != null) {
+        Class<?>[] params = method.getParameterTypes();
+        if (params.length != 1 || !AbstractEvent.class.isAssignableFrom(params[0]) || Modifier.isStatic(method.getModifiers()))
+          throw new IllegalArgumentException(
+              String.format("annotated method '%s' argument does not extend AbstractEvent or has more than 1 argument.", method.getName()));
+        SubscriberMetrics metrics = new SubscriberMetrics(listenerClass.getName() + "#" + method.getName(), params[0], mode);
+        subscribers.add(new Subscriber(l, method.getName(), params[0], mode, priority, receiveCancelled, bind(listenerClass, method),
+            metrics));
+      }
+    }
+    // getMethods() does not return methods in any particular order
+    subscribers.sort(BY_PRIORITY.thenComparing(s -> s.methodName));
+    return subscribers;
+  }
+
+  /**
+   * Creates the subscribers of a listener from its generated dispatcher.
+   */
+  private static List<Subscriber> createSubscribers(Listener l, Class<?> listenerClass, EventDispatcher dispatcher) {
+    List<Subscriber> subscribers = new ArrayList<>();
+    for (EventDispatcher.Handler handler : dispatcher.getHandlers()) {
+      SubscriberMetrics metrics = new SubscriberMetrics(listenerClass.getName() + "#" + handler.getMethodName(), handler.getEventType(),
+          handler.getMode());
+      subscribers.add(new Subscriber(l, handler.getMethodName(), handler.getEventType(), handler.getMode(), handler.getPriority(),
+          handler.isReceiveCancelled(), handler.getInvoker(), metrics));
+    }
+    subscribers.sort(BY_PRIORITY.thenComparing(s -> s.methodName));
+    return subscribers;
+  }
+
+  /**
+   * Dispatches an event to the listeners of this bus, by decreasing priority then in registration
+   * order, then to the ones of its descendants and, for {@link GlobalEvent}s, of its ancestors.
+   * Nothing happens if this bus is closed.
+   * 
+   * @param event the event
+   */
+  public void dispatchEvent(AbstractEvent event) {
+    if (this.closed)
+      return;
+    CoalescingPolicy<?> policy = this.coalescingPolicies.get(event.getClass());
+    if (policy == null || !coalesce(policy, event))
+      dispatchNow(event);
+  }
+
+  /**
+   * Merges the event with the pending one of the same key, if any.
+   * 
+   * @return false if the event must be dispatched immediately
+   */
+  @SuppressWarnings("unchecked")
+  private <E extends AbstractEvent> boolean coalesce(CoalescingPolicy<E> policy, AbstractEvent event) {
+    E e = (E) event;
+    Object key = policy.getKey(e);
+    if (key == null)
+      return false;
+
+    List<?> pendingKey = Arrays.asList(event.getClass(), key);
+    boolean schedule;
+    synchronized (this.pendingEvents) {
+      E previous = (E) this.pendingEvents.get(pendingKey);
+      this.pendingEvents.put(pendingKey, previous == null ? e : policy.merge(previous, e));
+      schedule = previous == null;
+    }
+    if (schedule) {
+      policy.schedule(() -> {
+        AbstractEvent pending;
+        synchronized (this.pendingEvents) {
+          pending = this.pendingEvents.remove(pendingKey);
+        }
+        if (pending != null)
+          dispatchNow(pending);
+      });
+    }
+    return true;
+  }
+
+  private void dispatchNow(AbstractEvent event) {
+    for (EventsBus bus = this; bus != null; bus = bus.parent) {
+      for (Consumer<? super AbstractEvent> observer : bus.observers)
+        observer.accept(event);
+    }
+    deliverToScope(event);
+    if (event instanceof GlobalEvent) {
+      for (EventsBus bus = this.parent; bus != null; bus = bus.parent)
+        bus.deliver(event);
+    }
+  }
+
+  /**
+   * Delivers an event to this bus' listeners and to those of its descendants.
+   */
+  private void deliverToScope(AbstractEvent event) {
+    deliver(event);
+    for (EventsBus child : this.children)
+      child.deliverToScope(event);
+  }
+
+  /**
+   * Delivers an event to this bus' listeners.
+   */
+  private void deliver(AbstractEvent event) {
+    purgeStaleListeners();
+    Subscriber[] subscribers = this.index.get(event.getClass());
+    if (subscribers == null) {
+      // Filled under the lock so that a concurrent registration cannot be missed
+      synchronized (this.lock) {
+        subscribers = this.index.computeIfAbsent(event.getClass(), this::collectSubscribers);
+      }
+    }
+    // Listeners registered during the dispatch do not receive the event
+    for (Subscriber subscriber : subscribers) {
+      Object listener = subscriber.listener.get();
+      if (listener == null || subscriber.listener.removed)
+        continue;
+
+      switch (subscriber.mode) {
+        case POSTING:
+          invoke(subscriber, listener, event);
+          break;
+        case EDT:
+          if (SwingUtilities.isEventDispatchThread())
+            invoke(subscriber, listener, event);
+          else
+            EdtDeliveries.post(() -> invoke(subscriber, listener, event));
+          break;
+        case BACKGROUND:
+          BackgroundDeliveries.EXECUTOR.execute(() -> invokeLogged(subscriber, listener, event));
+          break;
+      }
+    }
+  }
+
+  /**
+   * Unregisters the weakly referenced listeners that have been garbage collected.
+   */
+  private void purgeStaleListeners() {
+    if (this.staleReferences.poll() == null)
+      return;
+    while (this.staleReferences.poll() != null) {}
+
+    synchronized (this.lock) {
+      Set<Listener> stale = Collections.newSetFromMap(new IdentityHashMap<>());
+      for (Listener l : this.listeners) {
+        if (l.get() == null)
+          stale.add(l);
+      }
+      removeListeners(stale);
+    }
+  }
+
+  /**
+   * Removes the given listeners and their subscribers from the index. Must be called while holding
+   * the lock.
+   */
+  private void removeListeners(Set<Listener> listeners) {
+    if (listeners.isEmpty())
+      return;
+    this.listeners = Arrays.stream(this.listeners).filter(l -> !listeners.contains(l)).toArray(Listener[]::new);
+    for (Listener l : listeners)
+      l.removed = true;
+
+    this.index.replaceAll((eventType, current) -> {
+      Subscriber[] updated = Arrays.stream(current).filter(s -> !s.listener.removed).toArray(Subscriber[]::new);
+      if (updated.length == current.length)
+        return current;
+      return updated.length == 0 ? NO_SUBSCRIBERS : updated;
+    });
+  }
+
+  /**
+   * Returns all subscribers interested in the given event class.
+   */
+  private Subscriber[] collectSubscribers(Class<?> eventType) {
+    List<Subscriber> subscribers = new ArrayList<>();
+    for (Listener listener : this.listeners) {
+      for (Subscriber subscriber : listener.subscribers) {
+        if (subscriber.eventType.isAssignableFrom(eventType))
+          subscribers.add(subscriber);
+      }
+    }
+    subscribers.sort(BY_PRIORITY);
+    return subscribers.isEmpty() ? NO_SUBSCRIBERS : subscribers.toArray(new Subscriber[subscribers.size()]);
+  }
+
+  /**
+   * Calls a subscriber and records the duration, rethrowing unchecked exceptions as is.
+   */
+  private void invoke(Subscriber subscriber, Object listener, AbstractEvent event) {
+    // Checked here rather than when dispatching as asynchronous subscribers may run later
+    if (event.isCancelled() && !subscriber.receiveCancelled)
+      return;
+
+    long start = System.nanoTime();
+    try {
+      subscriber.invoker.invoke(listener, event);
+    }
+    catch (RuntimeException | Error ex) {
+      throw ex;
+    }
+    catch (Throwable ex) {
+      throw new RuntimeException(ex);
+    }
+    finally {
+      long duration = System.nanoTime() - start;
+      subscriber.metrics.record(duration);
+      if (duration > this.slowThreshold && SwingUtilities.isEventDispatchThread())
+        LOGGER.warn("Slow subscriber {} took {} ms on the EDT for {}", subscriber.metrics.getSubscriberName(),
+            TimeUnit.NANOSECONDS.toMillis(duration), event.getClass().getName());
+    }
+  }
+
+  /**
+   * Calls a subscriber, logging any exception.
+   */
+  private void invokeLogged(Subscriber subscriber, Object listener, AbstractEvent event) {
+    try {
+      invoke(subscriber, listener, event);
+    }
+    catch (RuntimeException ex) {
+      LOGGER.error("Exception in subscriber of {}", event.getClass().getName(), ex);
+    }
+  }
+
+  /**
+   * Creates an invoker for a method of the given listener class. A lambda calling the method
+   * directly is generated if possible; a method handle is used otherwise, e.g. if the listener's
+   * class is not public. Invokers do not reference listeners so that they can be weakly held.
+   */
+  private static Invoker bind(Class<?> listenerClass, Method method) {
+    if (isPublic(listenerClass) && isVisible(listenerClass) && isVisible(method.getParameterTypes()[0])) {
+      try {
+        MethodHandle handle = LOOKUP.unreflect(method);
+        CallSite site = LambdaMetafactory.metafactory(LOOKUP, "invoke", MethodType.methodType(Invoker.class), INVOKER_TYPE, handle,
+            MethodType.methodType(void.class, listenerClass, method.getParameterTypes()[0]));
+        return (Invoker) site.getTarget().invoke();
+      }
+      catch (Throwable __) {}
+    }
+
+    try {
+      method.setAccessible(true);
+      MethodHandle handle = LOOKUP.unreflect(method).asType(INVOKER_TYPE);
+      return (l, e) -> {
+        handle.invokeExact(l, e);
+      };
+    }
+    catch (IllegalAccessException | RuntimeException ex) {
+      throw new IllegalArgumentException("cannot access method " + method, ex);
+    }
+  }
+
+  /**
+   * Tells if the class and all its enclosing classes are public.
+   */
+  private static boolean isPublic(Class<?> c) {
+    for (; c != null; c = c.getEnclosingClass()) {
+      if (!Modifier.isPublic(c.getModifiers()))
+        return false;
+    }
+    return true;
+  }
+
+  /**
+   * Tells if the class can be resolved from this class' class loader. Generated lambdas are defined
+   * in this loader, they could not link against a class that is not visible from it.
+   */
+  private static boolean isVisible(Class<?> c) {
+    try {
+      return Class.forName(c.getName(), false, EventsBus.class.getClassLoader()) == c;
+    }
+    catch (ClassNotFoundException | LinkageError __) {
+      return false;
+    }
+  }
+
+  private static class Subscriber {
+    final Listener listener;
+    final String methodName;
+    final Class<?> eventType;
+    final DeliveryMode mode;
+    final int priority;
+    final boolean receiveCancelled;
+    final Invoker invoker;
+    final SubscriberMetrics metrics;
+
+    Subscriber(Listener listener, String methodName, Class<?> eventType, DeliveryMode mode, int priority, boolean receiveCancelled,
+        Invoker invoker, SubscriberMetrics metrics) {
+      this.listener = listener;
+      this.methodName = methodName;
+      this.eventType = eventType;
+      this.mode = mode;
+      this.priority = priority;
+      this.receiveCancelled = receiveCancelled;
+      this.invoker = invoker;
+      this.metrics = metrics;
+    }
+  }
+
+  /**
+   * Deliveries pending on the EDT. They are all run by a single {@code invokeLater} call.
+   */
+  private static class EdtDeliveries {
+    private static final Queue<Runnable> QUEUE = new ConcurrentLinkedQueue<>();
+    private static final AtomicBoolean SCHEDULED = new AtomicBoolean();
+
+    static void post(Runnable delivery) {
+      QUEUE.add(delivery);
+      if (SCHEDULED.compareAndSet(false, true))
+        SwingUtilities.invokeLater(EdtDeliveries::run);
+    }
+
+    private static void run() {
+      SCHEDULED.set(false);
+      Runnable delivery;
+      while ((delivery = QUEUE.poll()) != null) {
+        try {
+          delivery.run();
+        }
+        catch (RuntimeException ex) {
+          LOGGER.error("Exception in EDT subscriber", ex);
+        }
+      }
+    }
+  }
+
+  /**
+   * Holds the pool of background threads, created on first use.
+   */
+  private static class BackgroundDeliveries {
+    private static final AtomicInteger THREADS_COUNT = new AtomicInteger();
+    static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors() / 2),
+        r -> {
+          Thread t = new Thread(r, "events-" + THREADS_COUNT.incrementAndGet());
+          t.setDaemon(true);
+          return t;
+        });
+  }
+
+  private static class Listener {
+    private final Object instance;
+    private final WeakReference<Object> reference;
+    List<Subscriber> subscribers;
+    /** Set when unregistered so that dispatches in progress skip this listener */
+    volatile boolean removed;
+
+    Listener(Object instance) {
+      this.instance = instance;
+      this.reference = null;
+    }
+
+    Listener(WeakReference<Object> reference) {
+      this.instance = null;
+      this.reference = reference;
+    }
+
+    /**
+     * @return the listener or null if it has been garbage collected
+     */
+    Object get() {
+      return this.reference != null ? this.reference.get() : this.instance;
+    }
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright © 2017 Damien Vergnet
+ * 
+ * This file is part of GUI-Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.darmo_creations.gui_framework.events;
+
+import java.util.Arrays;
+
+import net.darmo_creations.utils.events.AbstractEvent;
+
+/**
+ * This event is fired when the application is launched again while running in single instance
+ * mode. It holds the command-line parameters of the new launch.
+ *
+ * @author Damien Vergnet
+ */
+public class NewInstanceEvent extends AbstractEvent {
+  private final String[] parameters;
+
+  /**
+   * Creates an event.
+   * 
+   * @param parameters the parameters of the new instance
+   */
+  public NewInstanceEvent(String[] parameters) {
+    super(false);
+    this.parameters = Arrays.copyOf(parameters, parameters.length);
+  }
+
+  /**
+   * @return a copy of the parameters of the new instance
+   */
+  public String[] getParameters() {
+    return Arrays.copyOf(this.parameters, this.parameters.length);
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright © 2017 Damien Vergnet
+ * 
+ * This file is part of GUI-Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.darmo_creations.gui_framework.events;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Methods annotated with this annotation are called by the {@link EventsBus} when an event of the
+ * type of their only parameter is dispatched. Unlike
+ * {@link net.darmo_creations.utils.events.SubscribeEvent}, which is still supported and always
+ * delivers events on the posting thread, this annotation lets subscribers choose the thread they
+ * are called from.
+ *
+ * @author Damien Vergnet
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface SubscribeEvent {
+  /**
+   * @return the thread this subscriber is called from
+   */
+  DeliveryMode mode() default DeliveryMode.POSTING;
+
+  /**
+   * Subscribers with higher priorities are called first. Subscribers with the same priority are
+   * called in registration order.
+   * 
+   * @return this subscriber's priority
+   */
+  int priority() default 0;
+
+  /**
+   * @return true if this subscriber should receive events cancelled by a subscriber called before
+   *         it; false to skip them
+   */
+  boolean receiveCancelled() default false;
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright © 2017 Damien Vergnet
+ * 
+ * This file is part of GUI-Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.darmo_creations.gui_framework.events;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Invocation statistics of an event subscriber. Durations are recorded in a histogram whose bucket
+ * {@code i} counts the invocations that took less than 2<sup>i</sup> microseconds (the last bucket
+ * counts all longer ones).
+ *
+ * @author Damien Vergnet
+ * @see EventsBus#getMetrics()
+ */
+public final class SubscriberMetrics {
+  /** Number of histogram buckets; the last one holds durations of about 0.5 s and more. */
+  public static final int BUCKETS_COUNT = 21;
+
+  private final String subscriberName;
+  private final Class<?> eventType;
+  private final DeliveryMode mode;
+  private final LongAdder count;
+  private final LongAdder totalNanos;
+  private final AtomicLong maxNanos;
+  private final AtomicLongArray histogram;
+
+  SubscriberMetrics(String subscriberName, Class<?> eventType, DeliveryMode mode) {
+    this.subscriberName = subscriberName;
+    this.eventType = eventType;
+    this.mode = mode;
+    this.count = new LongAdder();
+    this.totalNanos = new LongAdder();
+    this.maxNanos = new AtomicLong();
+    this.histogram = new AtomicLongArray(BUCKETS_COUNT);
+  }
+
+  void record(long nanos) {
+    this.count.increment();
+    this.totalNanos.add(nanos);
+    this.maxNanos.accumulateAndGet(nanos, Math::max);
+    long micros = nanos / 1000;
+    this.histogram.incrementAndGet(Math.min(BUCKETS_COUNT - 1, 64 - Long.numberOfLeadingZeros(micros)));
+  }
+
+  void reset() {
+    this.count.reset();
+    this.totalNanos.reset();
+    this.maxNanos.set(0);
+    for (int i = 0; i < BUCKETS_COUNT; i++)
+      this.histogram.set(i, 0);
+  }
+
+  /**
+   * @return the subscriber's name: the listener's class name followed by '#' and the method's name
+   */
+  public String getSubscriberName() {
+    return this.subscriberName;
+  }
+
+  /**
+   * @return the type of the method's parameter
+   */
+  public Class<?> getEventType() {
+    return this.eventType;
+  }
+
+  /**
+   * @return the subscriber's delivery mode
+   */
+  public DeliveryMode getMode() {
+    return this.mode;
+  }
+
+  /**
+   * @return the number of invocations
+   */
+  public long getCount() {
+    return this.count.sum();
+  }
+
+  /**
+   * @return the total duration of all invocations in nanoseconds
+   */
+  public long getTotalNanos() {
+    return this.totalNanos.sum();
+  }
+
+  /**
+   * @return the mean duration of invocations in nanoseconds; 0 if there was none
+   */
+  public long getMeanNanos() {
+    long count = getCount();
+    return count == 0 ? 0 : getTotalNanos() / count;
+  }
+
+  /**
+   * @return the duration of the longest invocation in nanoseconds
+   */
+  public long getMaxNanos() {
+    return this.maxNanos.get();
+  }
+
+  /**
+   * @return a copy of the durations histogram
+   */
+  public long[] getHistogram() {
+    long[] histogram = new long[BUCKETS_COUNT];
+    for (int i = 0; i < BUCKETS_COUNT; i++)
+      histogram[i] = this.histogram.get(i);
+    return histogram;
+  }
+
+  /**
+   * Returns an upper bound of the given percentile of invocation durations, based on the histogram.
+   * 
+   * @param percentile the percentile, between 0 and 100
+   * @return the duration in microseconds or 0 if there was no invocation
+   */
+  public long getPercentileMicros(double percentile) {
+    if (percentile < 0 || percentile > 100)
+      throw new IllegalArgumentException("percentile must be between 0 and 100");
+    long[] histogram = getHistogram();
+    long total = 0;
+    for (long n : histogram)
+      total += n;
+    if (total == 0)
+      return 0;
+
+    long threshold = (long) Math.ceil(total * percentile / 100);
+    long sum = 0;
+    for (int i = 0; i < BUCKETS_COUNT - 1; i++) {
+      sum += histogram[i];
+      if (sum >= threshold)
+        return 1L << i;
+    }
+    return getMaxNanos() / 1000;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s(%s, %s): %d calls, mean %d µs, max %d µs", this.subscriberName, this.eventType.getSimpleName(), this.mode,
+        getCount(), getMeanNanos() / 1000, getMaxNanos() / 1000);
+  }
+}
@@ -22,10 +22,15 @@ import net.darmo_creations.utils.events.AbstractEvent;
 
 /**
  * This event is fired when a menu item/button is clicked. This event can be cancelled.
+ * <p>
+ * It is dispatched on the bus of the frame it comes from then, as a {@link GlobalEvent}, on
+ * {@link net.darmo_creations.gui_framework.ApplicationRegistry#EVENTS_BUS} so that listeners
+ * registered there still receive it. Other frames do not receive it.
+ * </p>
  * 
  * @author Damien Vergnet
  */
-public final class UserEvent extends AbstractEvent {
+public final class UserEvent extends AbstractEvent implements GlobalEvent {
   private final Type type;
 
   /**
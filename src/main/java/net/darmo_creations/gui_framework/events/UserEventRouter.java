@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2017 Damien Vergnet
+ * 
+ * This file is part of GUI-Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.darmo_creations.gui_framework.events;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * A user event router calls only the handlers registered for the type of each {@link UserEvent}
+ * instead of broadcasting it to all subscribers; finding them costs a single lookup whatever the
+ * number of types and handlers. Each frame has its own router, called by its controller (see
+ * {@link net.darmo_creations.gui_framework.gui.ApplicationFrame#getUserEventRouter()}); a router
+ * may also be registered directly to an events bus.
+ * <p>
+ * Types are compared by identity, they should be enum constants like {@link UserEvent.DefaultType}.
+ * Handlers of a type are called in registration order until the event is cancelled. Handlers may
+ * be added or removed from any thread, dispatching is not affected by concurrent changes.
+ * </p>
+ *
+ * @author Damien Vergnet
+ */
+public final class UserEventRouter {
+  private final Object lock = new Object();
+  /** Handlers of each type; the map and lists are never modified once published */
+  private volatile Map<UserEvent.Type, List<Consumer<? super UserEvent>>> routes = new IdentityHashMap<>();
+
+  /**
+   * Adds a handler for the given type.
+   *
+   * @param type the type
+   * @param handler the handler
+   */
+  public void addHandler(UserEvent.Type type, Consumer<? super UserEvent> handler) {
+    Objects.requireNonNull(type);
+    Objects.requireNonNull(handler);
+    synchronized (this.lock) {
+      Map<UserEvent.Type, List<Consumer<? super UserEvent>>> routes = new IdentityHashMap<>(this.routes);
+      List<Consumer<? super UserEvent>> handlers = new ArrayList<>(routes.getOrDefault(type, Collections.emptyList()));
+      handlers.add(handler);
+      routes.put(type, Collections.unmodifiableList(handlers));
+      this.routes = routes;
+    }
+  }
+
+  /**
+   * Removes a handler of the given type.
+   *
+   * @param type the type
+   * @param handler the handler
+   * @return true if the handler was registered for this type
+   */
+  public boolean removeHandler(UserEvent.Type type, Consumer<? super UserEvent> handler) {
+    synchronized (this.lock) {
+      List<Consumer<? super UserEvent>> handlers = new ArrayList<>(this.routes.getOrDefault(type, Collections.emptyList()));
+      if (!handlers.remove(handler))
+        return false;
+      Map<UserEvent.Type, List<Consumer<? super UserEvent>>> routes = new IdentityHashMap<>(this.routes);
+      if (handlers.isEmpty())
+        routes.remove(type);
+      else
+        routes.put(type, Collections.unmodifiableList(handlers));
+      this.routes = routes;
+      return true;
+    }
+  }
+
+  /**
+   * Tells if at least one handler is registered for the given type.
+   *
+   * @param type the type
+   */
+  public boolean hasHandlers(UserEvent.Type type) {
+    return this.routes.containsKey(type);
+  }
+
+  /**
+   * Routes an event to the handlers of its type. Called by the events bus or the controller.
+   *
+   * @param e the event
+   */
+  @SubscribeEvent
+  public void onUserEvent(UserEvent e) {
+    List<Consumer<? super UserEvent>> handlers = this.routes.get(e.getType());
+    if (handlers == null)
+      return;
+    for (Consumer<? super UserEvent> handler : handlers) {
+      if (e.isCancelled())
+        break;
+      handler.accept(e);
+    }
+  }
+}
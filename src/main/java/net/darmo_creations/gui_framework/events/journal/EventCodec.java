@@ -0,0 +1,51 @@
+/*
+ * Copyright © 2017 Damien Vergnet
+ * 
+ * This file is part of GUI-Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.darmo_creations.gui_framework.events.journal;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import net.darmo_creations.utils.events.AbstractEvent;
+
+/**
+ * An event codec writes the key fields of an event to a journal and creates an equivalent event
+ * from them.
+ *
+ * @author Damien Vergnet
+ */
+public interface EventCodec<E extends AbstractEvent> {
+  /**
+   * Writes the fields of an event.
+   *
+   * @param event the event
+   * @param out the output
+   * @throws IOException if the event cannot be written
+   */
+  void write(E event, DataOutput out) throws IOException;
+
+  /**
+   * Reads the fields written by {@link #write(AbstractEvent, DataOutput)} and creates a new event.
+   *
+   * @param in the input
+   * @return the event
+   * @throws IOException if the event cannot be read
+   */
+  E read(DataInput in) throws IOException;
+}
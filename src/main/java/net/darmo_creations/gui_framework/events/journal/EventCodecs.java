@@ -0,0 +1,237 @@
+/*
+ * Copyright © 2017 Damien Vergnet
+ * 
+ * This file is part of GUI-Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.darmo_creations.gui_framework.events.journal;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.darmo_creations.gui_framework.config.Language;
+import net.darmo_creations.gui_framework.events.ChangeLanguageEvent;
+import net.darmo_creations.gui_framework.events.NewInstanceEvent;
+import net.darmo_creations.gui_framework.events.UpdateEvent;
+import net.darmo_creations.gui_framework.events.UserEvent;
+import net.darmo_creations.utils.events.AbstractEvent;
+import net.darmo_creations.utils.version.Version;
+
+/**
+ * This class holds the codecs used to record and replay events, by event class. Events without a
+ * codec are recorded without their fields and cannot be replayed.
+ *
+ * @author Damien Vergnet
+ */
+public final class EventCodecs {
+  /** Marks a {@link UserEvent.DefaultType}, followed by its ordinal */
+  private static final byte DEFAULT_TYPE = 0;
+  /** Marks another enum type, followed by its class and constant names */
+  private static final byte ENUM_TYPE = 1;
+
+  private final Map<String, Entry<?>> codecs;
+
+  /**
+   * Creates a registry with the codecs of the framework's events.
+   *
+   * @return the registry
+   */
+  public static EventCodecs withDefaults() {
+    EventCodecs codecs = new EventCodecs();
+    codecs.register(UserEvent.class, new EventCodec<UserEvent>() {
+      @Override
+      public void write(UserEvent event, DataOutput out) throws IOException {
+        UserEvent.Type type = event.getType();
+        if (type instanceof UserEvent.DefaultType) {
+          out.writeByte(DEFAULT_TYPE);
+          out.writeByte(((UserEvent.DefaultType) type).ordinal());
+        }
+        else if (type instanceof Enum) {
+          out.writeByte(ENUM_TYPE);
+          out.writeUTF(((Enum<?>) type).getDeclaringClass().getName());
+          out.writeUTF(((Enum<?>) type).name());
+        }
+        else {
+          throw new IOException("unsupported type " + type.getClass().getName());
+        }
+      }
+
+      @Override
+      public UserEvent read(DataInput in) throws IOException {
+        byte kind = in.readByte();
+        if (kind == DEFAULT_TYPE)
+          return new UserEvent(UserEvent.DefaultType.values()[in.readByte()]);
+        return new UserEvent(readEnumType(in.readUTF(), in.readUTF()));
+      }
+    });
+    codecs.register(ChangeLanguageEvent.class, new EventCodec<ChangeLanguageEvent>() {
+      @Override
+      public void write(ChangeLanguageEvent event, DataOutput out) throws IOException {
+        out.writeUTF(event.getLanguage().getName());
+        out.writeUTF(event.getLanguage().getCode());
+      }
+
+      @Override
+      public ChangeLanguageEvent read(DataInput in) throws IOException {
+        String name = in.readUTF();
+        String[] code = in.readUTF().split("_", 3);
+        Locale locale = new Locale(code[0], code.length > 1 ? code[1] : "", code.length > 2 ? code[2] : "");
+        return new ChangeLanguageEvent(new Language(name, locale));
+      }
+    });
+    codecs.register(NewInstanceEvent.class, new EventCodec<NewInstanceEvent>() {
+      @Override
+      public void write(NewInstanceEvent event, DataOutput out) throws IOException {
+        String[] parameters = event.getParameters();
+        out.writeInt(parameters.length);
+        for (String parameter : parameters)
+          out.writeUTF(parameter);
+      }
+
+      @Override
+      public NewInstanceEvent read(DataInput in) throws IOException {
+        String[] parameters = new String[in.readInt()];
+        for (int i = 0; i < parameters.length; i++)
+          parameters[i] = in.readUTF();
+        return new NewInstanceEvent(parameters);
+      }
+    });
+    codecs.register(UpdateEvent.Checking.class, new EventCodec<UpdateEvent.Checking>() {
+      @Override
+      public void write(UpdateEvent.Checking event, DataOutput out) {}
+
+      @Override
+      public UpdateEvent.Checking read(DataInput in) {
+        return new UpdateEvent.Checking();
+      }
+    });
+    codecs.register(UpdateEvent.NoUpdate.class, new EventCodec<UpdateEvent.NoUpdate>() {
+      @Override
+      public void write(UpdateEvent.NoUpdate event, DataOutput out) {}
+
+      @Override
+      public UpdateEvent.NoUpdate read(DataInput in) {
+        return new UpdateEvent.NoUpdate();
+      }
+    });
+    codecs.register(UpdateEvent.NewUpdate.class, new EventCodec<UpdateEvent.NewUpdate>() {
+      @Override
+      public void write(UpdateEvent.NewUpdate event, DataOutput out) throws IOException {
+        out.writeUTF(event.getVersion().toString());
+        out.writeUTF(event.getLink());
+        // The changelog may be longer than what writeUTF supports and is not needed to replay
+      }
+
+      @Override
+      public UpdateEvent.NewUpdate read(DataInput in) throws IOException {
+        try {
+          return new UpdateEvent.NewUpdate(Version.fromString(in.readUTF()), in.readUTF(), "");
+        }
+        catch (ParseException ex) {
+          throw new IOException(ex);
+        }
+      }
+    });
+    codecs.register(UpdateEvent.CheckFailed.class, new EventCodec<UpdateEvent.CheckFailed>() {
+      @Override
+      public void write(UpdateEvent.CheckFailed event, DataOutput out) throws IOException {
+        out.writeUTF(String.valueOf(event.getReason()));
+      }
+
+      @Override
+      public UpdateEvent.CheckFailed read(DataInput in) throws IOException {
+        return new UpdateEvent.CheckFailed(in.readUTF());
+      }
+    });
+    return codecs;
+  }
+
+  /**
+   * Creates an empty registry.
+   */
+  public EventCodecs() {
+    this.codecs = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Registers the codec of an event class. It only applies to this exact class, not to its
+   * subclasses. Any previous codec is replaced.
+   *
+   * @param eventClass the event class
+   * @param codec the codec
+   */
+  public <E extends AbstractEvent> void register(Class<E> eventClass, EventCodec<E> codec) {
+    this.codecs.put(eventClass.getName(), new Entry<>(eventClass, Objects.requireNonNull(codec)));
+  }
+
+  /**
+   * Writes an event using the codec of its class.
+   *
+   * @return false if there is no codec for this event
+   */
+  boolean write(AbstractEvent event, DataOutput out) throws IOException {
+    Entry<?> entry = this.codecs.get(event.getClass().getName());
+    if (entry == null)
+      return false;
+    entry.write(event, out);
+    return true;
+  }
+
+  /**
+   * Reads an event using the codec of the given class.
+   *
+   * @return the event or an empty optional if there is no codec for this class
+   */
+  Optional<AbstractEvent> read(String eventClass, DataInput in) throws IOException {
+    Entry<?> entry = this.codecs.get(eventClass);
+    if (entry == null)
+      return Optional.empty();
+    return Optional.of(entry.codec.read(in));
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static UserEvent.Type readEnumType(String className, String name) throws IOException {
+    try {
+      Class<?> c = Class.forName(className);
+      if (!c.isEnum() || !UserEvent.Type.class.isAssignableFrom(c))
+        throw new IOException(className + " is not an enum type");
+      return (UserEvent.Type) Enum.valueOf((Class<? extends Enum>) c, name);
+    }
+    catch (ClassNotFoundException | IllegalArgumentException ex) {
+      throw new IOException(ex);
+    }
+  }
+
+  private static class Entry<E extends AbstractEvent> {
+    final Class<E> eventClass;
+    final EventCodec<E> codec;
+
+    Entry(Class<E> eventClass, EventCodec<E> codec) {
+      this.eventClass = eventClass;
+      this.codec = codec;
+    }
+
+    void write(AbstractEvent event, DataOutput out) throws IOException {
+      this.codec.write(this.eventClass.cast(event), out);
+    }
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright © 2017 Damien Vergnet
+ * 
+ * This file is part of GUI-Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.darmo_creations.gui_framework.events.journal;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import net.darmo_creations.utils.events.AbstractEvent;
+
+/**
+ * Reads the journals written by an {@link EventRecorder}.
+ *
+ * @author Damien Vergnet
+ */
+public final class EventJournalReader implements Closeable {
+  private final DataInputStream in;
+  private final EventCodecs codecs;
+  private final long startTime;
+  private final List<String> classNames;
+  private long timestamp;
+
+  /**
+   * Creates a reader and reads the journal's header. The stream is closed when the reader is.
+   *
+   * @param in the journal's stream
+   * @param codecs the codecs of the recorded events
+   * @throws IOException if the stream is not a journal or has an unsupported version
+   */
+  public EventJournalReader(InputStream in, EventCodecs codecs) throws IOException {
+    this.in = new DataInputStream(new BufferedInputStream(in));
+    this.codecs = codecs;
+    this.classNames = new ArrayList<>();
+    if (this.in.readInt() != JournalFormat.MAGIC)
+      throw new IOException("not an events journal");
+    byte version = this.in.readByte();
+    if (version != JournalFormat.VERSION)
+      throw new IOException("unsupported journal version " + version);
+    this.startTime = this.in.readLong();
+  }
+
+  /**
+   * @return the recording start time in milliseconds since the epoch
+   */
+  public long getStartTime() {
+    return this.startTime;
+  }
+
+  /**
+   * Reads the next entry.
+   *
+   * @return the entry or an empty optional if the end of the journal has been reached
+   * @throws IOException if the journal is corrupted or an event could not be decoded
+   */
+  public Optional<Entry> next() throws IOException {
+    long delta;
+    try {
+      delta = JournalFormat.readVarLong(this.in);
+    }
+    catch (EOFException __) {
+      return Optional.empty();
+    }
+    this.timestamp += delta;
+
+    int id = (int) JournalFormat.readVarLong(this.in);
+    if (id == this.classNames.size())
+      this.classNames.add(this.in.readUTF());
+    else if (id > this.classNames.size())
+      throw new IOException("unknown class id " + id);
+    String className = this.classNames.get(id);
+
+    int length = (int) JournalFormat.readVarLong(this.in) - 1;
+    Optional<AbstractEvent> event = Optional.empty();
+    if (length >= 0) {
+      byte[] fields = new byte[length];
+      this.in.readFully(fields);
+      event = this.codecs.read(className, new DataInputStream(new ByteArrayInputStream(fields)));
+    }
+    return Optional.of(new Entry(this.timestamp, className, event));
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.in.close();
+  }
+
+  /**
+   * A journal entry.
+   *
+   * @author Damien Vergnet
+   */
+  public static final class Entry {
+    private final long timestamp;
+    private final String eventClass;
+    private final Optional<AbstractEvent> event;
+
+    private Entry(long timestamp, String eventClass, Optional<AbstractEvent> event) {
+      this.timestamp = timestamp;
+      this.eventClass = eventClass;
+      this.event = event;
+    }
+
+    /**
+     * @return the nanoseconds elapsed between the start of the recording and the event's dispatch
+     */
+    public long getTimestamp() {
+      return this.timestamp;
+    }
+
+    /**
+     * @return the name of the event's class
+     */
+    public String getEventClass() {
+      return this.eventClass;
+    }
+
+    /**
+     * @return a new event equivalent to the recorded one or an empty optional if it was recorded
+     *         without its fields or there is no codec for its class
+     */
+    public Optional<AbstractEvent> getEvent() {
+      return this.event;
+    }
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright © 2017 Damien Vergnet
+ * 
+ * This file is part of GUI-Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.darmo_creations.gui_framework.events.journal;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.darmo_creations.gui_framework.events.EventsBus;
+import net.darmo_creations.utils.events.AbstractEvent;
+
+/**
+ * An event recorder writes every event dispatched on a bus and its descendants to a binary journal
+ * that can later be replayed by an {@link EventReplayer}. Recording is enabled for the whole
+ * application by setting the {@value #JOURNAL_PROPERTY} system property to the journal's path.
+ * <p>
+ * Events are recorded on the dispatching thread before being delivered. If the journal cannot be
+ * written, recording stops and the error is logged; dispatching is never affected.
+ * </p>
+ *
+ * @author Damien Vergnet
+ */
+public final class EventRecorder implements Closeable {
+  /** System property holding the path of the journal to record */
+  public static final String JOURNAL_PROPERTY = "gui_framework.events.journal";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(EventRecorder.class);
+
+  private final EventsBus bus;
+  private final EventCodecs codecs;
+  private final Consumer<AbstractEvent> observer;
+  /** Guarded by this */
+  private final DataOutputStream out;
+  private final ByteArrayOutputStream buffer;
+  private final DataOutputStream bufferOut;
+  private final Map<Class<?>, Integer> classIds;
+  private long lastTimestamp;
+  private int recorded;
+  private boolean closed;
+
+  /**
+   * Starts recording the events dispatched on the given bus and its descendants. The stream is
+   * closed when the recorder is.
+   *
+   * @param bus the bus
+   * @param out the journal's stream
+   * @param codecs the codecs of the events to record
+   * @return the recorder
+   * @throws IOException if the journal's header could not be written
+   */
+  public static EventRecorder start(EventsBus bus, OutputStream out, EventCodecs codecs) throws IOException {
+    EventRecorder recorder = new EventRecorder(bus, out, codecs);
+    bus.addDispatchObserver(recorder.observer);
+    return recorder;
+  }
+
+  private EventRecorder(EventsBus bus, OutputStream out, EventCodecs codecs) throws IOException {
+    this.bus = bus;
+    this.codecs = codecs;
+    this.observer = this::record;
+    this.out = new DataOutputStream(new BufferedOutputStream(out));
+    this.buffer = new ByteArrayOutputStream();
+    this.bufferOut = new DataOutputStream(this.buffer);
+    this.classIds = new HashMap<>();
+    this.out.writeInt(JournalFormat.MAGIC);
+    this.out.writeByte(JournalFormat.VERSION);
+    this.out.writeLong(System.currentTimeMillis());
+    this.lastTimestamp = System.nanoTime();
+  }
+
+  /**
+   * @return the number of events recorded so far
+   */
+  public synchronized int getRecordedCount() {
+    return this.recorded;
+  }
+
+  /**
+   * Stops recording and closes the journal.
+   */
+  @Override
+  public void close() throws IOException {
+    this.bus.removeDispatchObserver(this.observer);
+    synchronized (this) {
+      if (this.closed)
+        return;
+      this.closed = true;
+      this.out.close();
+    }
+  }
+
+  private synchronized void record(AbstractEvent event) {
+    if (this.closed)
+      return;
+    long now = System.nanoTime();
+
+    boolean encoded;
+    this.buffer.reset();
+    try {
+      encoded = this.codecs.write(event, this.bufferOut);
+    }
+    catch (IOException | RuntimeException ex) {
+      LOGGER.debug("Could not encode event " + event.getClass().getName(), ex);
+      encoded = false;
+    }
+
+    try {
+      JournalFormat.writeVarLong(this.out, now - this.lastTimestamp);
+      this.lastTimestamp = now;
+      Integer id = this.classIds.get(event.getClass());
+      if (id == null) {
+        id = this.classIds.size();
+        this.classIds.put(event.getClass(), id);
+        JournalFormat.writeVarLong(this.out, id);
+        this.out.writeUTF(event.getClass().getName());
+      }
+      else {
+        JournalFormat.writeVarLong(this.out, id);
+      }
+      JournalFormat.writeVarLong(this.out, encoded ? this.buffer.size() + 1 : 0);
+      if (encoded)
+        this.buffer.writeTo(this.out);
+      this.recorded++;
+    }
+    catch (IOException ex) {
+      LOGGER.error("Could not write the events journal, recording stopped", ex);
+      this.closed = true;
+      this.bus.removeDispatchObserver(this.observer);
+      try {
+        this.out.close();
+      }
+      catch (IOException __) {}
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2017 Damien Vergnet
+ * 
+ * This file is part of GUI-Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.darmo_creations.gui_framework.events.journal;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import net.darmo_creations.gui_framework.events.EventsBus;
+import net.darmo_creations.utils.events.AbstractEvent;
+
+/**
+ * The event replayer dispatches the events of a journal on a bus, e.g.
+ * {@link net.darmo_creations.gui_framework.ApplicationRegistry#EVENTS_BUS} with headless listeners
+ * registered, to turn recorded sessions into repeatable benchmarks.
+ * <p>
+ * Events are dispatched on the calling thread; replaying from the EDT reproduces the conditions of
+ * most recorded events. Measured latencies only include the subscribers called on this thread, the
+ * bus' metrics give details about each subscriber.
+ * </p>
+ *
+ * @author Damien Vergnet
+ */
+public final class EventReplayer {
+  /**
+   * Replays a journal until its end.
+   *
+   * @param reader the journal
+   * @param bus the bus to dispatch events on
+   * @param realTime if true, the delays between the recorded events are respected; otherwise events
+   *          are dispatched as fast as possible
+   * @return the replay's statistics
+   * @throws IOException if the journal could not be read
+   * @throws InterruptedException if the thread is interrupted while waiting for the next event
+   */
+  public static ReplayReport replay(EventJournalReader reader, EventsBus bus, boolean realTime) throws IOException, InterruptedException {
+    int dispatched = 0, skipped = 0;
+    long totalLatency = 0, maxLatency = 0;
+    long start = System.nanoTime();
+
+    Optional<EventJournalReader.Entry> entry;
+    while ((entry = reader.next()).isPresent()) {
+      Optional<AbstractEvent> event = entry.get().getEvent();
+      if (!event.isPresent()) {
+        skipped++;
+        continue;
+      }
+      if (realTime) {
+        long delay = entry.get().getTimestamp() - (System.nanoTime() - start);
+        if (delay > 0)
+          TimeUnit.NANOSECONDS.sleep(delay);
+      }
+
+      long t = System.nanoTime();
+      bus.dispatchEvent(event.get());
+      long latency = System.nanoTime() - t;
+      totalLatency += latency;
+      maxLatency = Math.max(maxLatency, latency);
+      dispatched++;
+    }
+
+    return new ReplayReport(dispatched, skipped, System.nanoTime() - start, totalLatency, maxLatency);
+  }
+
+  private EventReplayer() {}
+}
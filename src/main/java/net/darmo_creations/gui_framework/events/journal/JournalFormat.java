@@ -0,0 +1,74 @@
+/*
+ * Copyright © 2017 Damien Vergnet
+ * 
+ * This file is part of GUI-Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.darmo_creations.gui_framework.events.journal;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Constants and helpers of the journal format.
+ * <p>
+ * A journal starts with a header: the magic number, the format version (a byte) and the recording
+ * start time in milliseconds since the epoch (a long). It is followed by one record per event:
+ * <ul>
+ * <li>the nanoseconds elapsed since the previous record (or the start) as a variable-length
+ * integer;</li>
+ * <li>the event class' id as a variable-length integer; ids are assigned in order of appearance and
+ * the first record of a class is followed by the class name;</li>
+ * <li>the length of the event's fields plus one as a variable-length integer, 0 meaning the event
+ * could not be encoded;</li>
+ * <li>the event's fields, written by its {@link EventCodec}.</li>
+ * </ul>
+ * </p>
+ *
+ * @author Damien Vergnet
+ */
+final class JournalFormat {
+  /** "EVJ1" */
+  static final int MAGIC = 0x45564A31;
+  static final byte VERSION = 1;
+
+  /**
+   * Writes a positive long using 7 bits per byte.
+   */
+  static void writeVarLong(DataOutput out, long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      out.writeByte((int) (value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte((int) value);
+  }
+
+  /**
+   * Reads a long written by {@link #writeVarLong(DataOutput, long)}.
+   */
+  static long readVarLong(DataInput in) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      byte b = in.readByte();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0)
+        return value;
+    }
+    throw new IOException("malformed variable-length integer");
+  }
+
+  private JournalFormat() {}
+}
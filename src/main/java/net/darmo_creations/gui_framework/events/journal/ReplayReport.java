@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2017 Damien Vergnet
+ * 
+ * This file is part of GUI-Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.darmo_creations.gui_framework.events.journal;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statistics of a journal replay.
+ *
+ * @author Damien Vergnet
+ */
+public final class ReplayReport {
+  private final int dispatched, skipped;
+  private final long elapsed, totalLatency, maxLatency;
+
+  ReplayReport(int dispatched, int skipped, long elapsed, long totalLatency, long maxLatency) {
+    this.dispatched = dispatched;
+    this.skipped = skipped;
+    this.elapsed = elapsed;
+    this.totalLatency = totalLatency;
+    this.maxLatency = maxLatency;
+  }
+
+  /**
+   * @return the number of dispatched events
+   */
+  public int getDispatchedCount() {
+    return this.dispatched;
+  }
+
+  /**
+   * @return the number of events that could not be replayed
+   */
+  public int getSkippedCount() {
+    return this.skipped;
+  }
+
+  /**
+   * @return the replay's duration in nanoseconds
+   */
+  public long getElapsedNanos() {
+    return this.elapsed;
+  }
+
+  /**
+   * @return the mean dispatch duration in nanoseconds
+   */
+  public long getMeanLatencyNanos() {
+    return this.dispatched == 0 ? 0 : this.totalLatency / this.dispatched;
+  }
+
+  /**
+   * @return the longest dispatch duration in nanoseconds
+   */
+  public long getMaxLatencyNanos() {
+    return this.maxLatency;
+  }
+
+  /**
+   * @return the number of events dispatched per second
+   */
+  public double getThroughput() {
+    return this.elapsed == 0 ? 0 : this.dispatched * (double) TimeUnit.SECONDS.toNanos(1) / this.elapsed;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d events (%d skipped) in %d ms, %.0f events/s, mean %d µs, max %d µs", this.dispatched, this.skipped,
+        TimeUnit.NANOSECONDS.toMillis(this.elapsed), getThroughput(), TimeUnit.NANOSECONDS.toMicros(getMeanLatencyNanos()),
+        TimeUnit.NANOSECONDS.toMicros(this.maxLatency));
+  }
+}
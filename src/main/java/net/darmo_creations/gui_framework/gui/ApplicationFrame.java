@@ -29,6 +29,7 @@ import java.awt.event.WindowEvent;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import javax.swing.ButtonGroup;
 import javax.swing.Icon;
@@ -42,6 +43,7 @@ import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JRadioButtonMenuItem;
 import javax.swing.JToolBar;
+import javax.swing.SwingUtilities;
 import javax.swing.border.MatteBorder;
 
 import net.darmo_creations.gui_framework.Application;
@@ -50,9 +52,14 @@ import net.darmo_creations.gui_framework.config.Language;
 import net.darmo_creations.gui_framework.config.WritableConfig;
 import net.darmo_creations.gui_framework.controllers.ApplicationController;
 import net.darmo_creations.gui_framework.events.ChangeLanguageEvent;
+import net.darmo_creations.gui_framework.events.CoalescingPolicy;
+import net.darmo_creations.gui_framework.events.EventsBus;
 import net.darmo_creations.gui_framework.events.UserEvent;
+import net.darmo_creations.gui_framework.events.UserEventRouter;
 import net.darmo_creations.gui_framework.gui.dialog.AboutDialog;
+import net.darmo_creations.gui_framework.gui.dialog.LazyDialog;
 import net.darmo_creations.gui_framework.gui.dialog.UpdateDialog;
+import net.darmo_creations.gui_framework.startup.StartupProfiler;
 import net.darmo_creations.gui_framework.util.ImagesUtil;
 import net.darmo_creations.utils.I18n;
 import net.darmo_creations.utils.Nullable;
@@ -60,22 +67,30 @@ import net.darmo_creations.utils.swing.status_bar.StatusBar;
 import net.darmo_creations.utils.version.Version;
 
 /**
- * The main frame of the application.
+ * The main frame of the application. An application may open several frames, each one having its
+ * own controller and events bus.
+ *
+ * @see Application#openWindow()
  *
  * @author Damien Vergnet
  */
 public abstract class ApplicationFrame<T extends ApplicationController<?>> extends JFrame {
   private static final long serialVersionUID = 2426665404072947885L;
 
-  private AboutDialog aboutDialog;
-  private UpdateDialog updateDialog;
+  private final transient EventsBus eventsBus;
+  private final transient UserEventRouter userEventRouter;
+  private LazyDialog<AboutDialog> aboutDialog;
+  private LazyDialog<UpdateDialog> updateDialog;
 
   private JPanel contentPnl;
   private JCheckBoxMenuItem checkUpdatesItem;
+  private final Map<Language, JMenuItem> languageItems;
   private JMenu optionsMenu, helpMenu;
   private JToolBar toolBar;
   private StatusBar statusBar;
   private JLabel updateLbl;
+  private int updateMode = -1;
+  private String updateStr;
 
   protected final boolean hasMenuBar, hasToolBar, hasStatusBar;
 
@@ -83,7 +98,13 @@ public abstract class ApplicationFrame<T extends ApplicationController<?>> exten
 
   public ApplicationFrame(WritableConfig config, boolean hasMenuBar, boolean hasToolBar, boolean hasStatusBar, boolean isFullyExtended,
       Dimension minSize, boolean resizable) {
-    T controller = preInit(config);
+    this.eventsBus = ApplicationRegistry.EVENTS_BUS.createChild();
+    // Repeated clicks on the item only trigger one updates check
+    this.eventsBus.setCoalescingPolicy(UserEvent.class,
+        CoalescingPolicy.<UserEvent> latest().withKey(e -> e.getType() == UserEvent.DefaultType.TOGGLE_CHECK_UPDATES ? e.getType() : null)
+            .withWindow(300, TimeUnit.MILLISECONDS));
+    this.userEventRouter = new UserEventRouter();
+    T controller = StartupProfiler.call("frame.pre_init", () -> preInit(config));
     Application application = ApplicationRegistry.getApplication();
 
     setTitle(getBaseTitle());
@@ -97,7 +118,12 @@ public abstract class ApplicationFrame<T extends ApplicationController<?>> exten
     addWindowListener(new WindowAdapter() {
       @Override
       public void windowClosing(WindowEvent e) {
-        ApplicationRegistry.EVENTS_BUS.dispatchEvent(new UserEvent(UserEvent.DefaultType.EXITING));
+        ApplicationFrame.this.eventsBus.dispatchEvent(new UserEvent(UserEvent.DefaultType.EXITING));
+      }
+
+      @Override
+      public void windowClosed(WindowEvent e) {
+        ApplicationFrame.this.eventsBus.close();
       }
     });
 
@@ -106,27 +132,32 @@ public abstract class ApplicationFrame<T extends ApplicationController<?>> exten
     this.hasStatusBar = hasStatusBar;
 
     if (application.hasAboutDialog())
-      this.aboutDialog = new AboutDialog(this);
-    this.updateDialog = new UpdateDialog(this);
+      this.aboutDialog = new LazyDialog<>(() -> new AboutDialog(this));
+    this.updateDialog = new LazyDialog<>(() -> new UpdateDialog(this));
 
     this.listeners = new HashMap<>();
+    this.languageItems = new HashMap<>();
     for (UserEvent.DefaultType type : UserEvent.DefaultType.values())
-      this.listeners.put(type, e -> ApplicationRegistry.EVENTS_BUS.dispatchEvent(new UserEvent(type)));
+      this.listeners.put(type, e -> this.eventsBus.dispatchEvent(new UserEvent(type)));
 
     if (this.hasMenuBar) {
-      JMenuBar bar = initJMenuBar(this.listeners, config);
-      for (int i = 0; i < bar.getMenuCount();) {
-        if (bar.getMenu(i).getMenuComponentCount() == 0) {
-          bar.remove(i);
+      StartupProfiler.run("frame.menu_bar", () -> {
+        JMenuBar bar = initJMenuBar(this.listeners, config);
+        for (int i = 0; i < bar.getMenuCount();) {
+          if (bar.getMenu(i).getMenuComponentCount() == 0) {
+            bar.remove(i);
+          }
+          else
+            i++;
         }
-        else
-          i++;
-      }
-      setJMenuBar(bar);
+        setJMenuBar(bar);
+      });
     }
     if (this.hasToolBar) {
-      this.toolBar = initJToolBar(this.listeners);
-      add(this.toolBar, BorderLayout.NORTH);
+      StartupProfiler.run("frame.tool_bar", () -> {
+        this.toolBar = initJToolBar(this.listeners);
+        add(this.toolBar, BorderLayout.NORTH);
+      });
     }
 
     this.contentPnl = new JPanel();
@@ -142,22 +173,99 @@ public abstract class ApplicationFrame<T extends ApplicationController<?>> exten
       this.updateLbl.addMouseListener(new MouseAdapter() {
         @Override
         public void mouseClicked(MouseEvent e) {
-          ApplicationRegistry.EVENTS_BUS.dispatchEvent(new UserEvent(UserEvent.DefaultType.OPEN_UPDATE));
+          ApplicationFrame.this.eventsBus.dispatchEvent(new UserEvent(UserEvent.DefaultType.OPEN_UPDATE));
         }
       });
       this.statusBar.addRightComponent(this.updateLbl);
     }
 
-    initContent(controller, config);
-
-    ApplicationRegistry.EVENTS_BUS.register(controller);
+    StartupProfiler.run("frame.init_content", () -> initContent(controller, config));
 
-    controller.init();
+    this.eventsBus.register(controller);
 
-    pack();
+    StartupProfiler.run("frame.controller_init", controller::init);
+    StartupProfiler.run("frame.pack", this::pack);
     setLocationRelativeTo(null);
     if (isFullyExtended)
       setExtendedState(MAXIMIZED_BOTH);
+
+    LocalizationRegistry.register(this, ApplicationFrame::updateTexts);
+
+    if (preloadDialogs()) {
+      addWindowListener(new WindowAdapter() {
+        @Override
+        public void windowOpened(WindowEvent e) {
+          removeWindowListener(this);
+          preloadDialogsWhenIdle();
+        }
+      });
+    }
+  }
+
+  /**
+   * Reads the dialogs' resources in the background then creates the dialogs on the EDT. Called
+   * once the frame has been opened, hence after the application is running.
+   */
+  private void preloadDialogsWhenIdle() {
+    Thread t = new Thread(() -> {
+      if (this.aboutDialog != null)
+        AboutDialog.preloadResources();
+      SwingUtilities.invokeLater(() -> {
+        if (this.aboutDialog != null)
+          this.aboutDialog.preloadWhenIdle();
+        this.updateDialog.preloadWhenIdle();
+      });
+    }, "dialogs-preload");
+    t.setDaemon(true);
+    t.setPriority(Thread.MIN_PRIORITY);
+    t.start();
+  }
+
+  /**
+   * Returns this frame's events bus, a child of {@link ApplicationRegistry#EVENTS_BUS}. Events fired
+   * by this frame are dispatched on this bus and the controller is registered to it. The bus is
+   * closed when the frame is disposed of.
+   */
+  public EventsBus getEventsBus() {
+    return this.eventsBus;
+  }
+
+  /**
+   * Returns this frame's user event router. The {@link UserEvent}s fired by this frame are routed by
+   * the controller to the handlers registered for their type, after the subscribers with a higher
+   * priority.
+   */
+  public UserEventRouter getUserEventRouter() {
+    return this.userEventRouter;
+  }
+
+  /**
+   * Updates the texts of this frame after the language changed.
+   */
+  private void updateTexts() {
+    if (this.aboutDialog != null)
+      this.aboutDialog.reset();
+    this.updateDialog.reset();
+    if (this.updateMode >= 0)
+      setUpdateLabelText(this.updateMode, this.updateStr);
+    onLanguageChanged();
+  }
+
+  /**
+   * Called after the language changed. Menus, dialogs and the updates status are already updated,
+   * frames should update their own content in this method unless they registered it to the
+   * {@link LocalizationRegistry}.
+   */
+  protected void onLanguageChanged() {}
+
+  /**
+   * Dialogs are created the first time they are shown. If this method returns true, they are
+   * created shortly after the frame has been opened instead, their resources being read in the
+   * background, which makes them appear faster the first time at the cost of memory. Returns false
+   * by default.
+   */
+  protected boolean preloadDialogs() {
+    return false;
   }
 
   /**
@@ -188,45 +296,48 @@ public abstract class ApplicationFrame<T extends ApplicationController<?>> exten
     JMenuItem i;
 
     // 'Options' menu
-    this.optionsMenu = new JMenu(I18n.getLocalizedString("menu.options.text"));
-    this.optionsMenu.setMnemonic(I18n.getLocalizedMnemonic("menu.options"));
+    this.optionsMenu = new JMenu();
+    LocalizationRegistry.register(this.optionsMenu, "menu.options");
 
     if (application.checkUpdates()) {
-      this.optionsMenu.add(this.checkUpdatesItem = new JCheckBoxMenuItem(I18n.getLocalizedString("item.check_updates.text")));
-      this.checkUpdatesItem.setMnemonic(I18n.getLocalizedMnemonic("item.check_updates"));
+      this.optionsMenu.add(this.checkUpdatesItem = new JCheckBoxMenuItem());
+      LocalizationRegistry.register(this.checkUpdatesItem, "item.check_updates");
       this.checkUpdatesItem.addActionListener(listeners.get(UserEvent.DefaultType.TOGGLE_CHECK_UPDATES));
     }
 
     if (ApplicationRegistry.getApplication().getLanguages().length > 1) {
-      JMenu langMenu = new JMenu(I18n.getLocalizedString("menu.lang.text"));
-      langMenu.setMnemonic(I18n.getLocalizedMnemonic("menu.lang"));
+      JMenu langMenu = new JMenu();
+      LocalizationRegistry.register(langMenu, "menu.lang");
       this.optionsMenu.add(langMenu);
       ButtonGroup bg = new ButtonGroup();
       for (Language l : ApplicationRegistry.getApplication().getLanguages()) {
         langMenu.add(i = new JRadioButtonMenuItem(l.getName()));
+        // Keeps the selection in sync when the language is changed from another frame
+        LocalizationRegistry.register(i, item -> item.setSelected(l == config.getLanguage()));
         i.setSelected(l == config.getLanguage());
         i.setIcon(ImagesUtil.getIcon(Application.ICONS_LOCATION + "flag-" + l.getCode() + ".png"));
-        i.addActionListener(e -> ApplicationRegistry.EVENTS_BUS.dispatchEvent(new ChangeLanguageEvent(l)));
+        i.addActionListener(e -> this.eventsBus.dispatchEvent(new ChangeLanguageEvent(l)));
         bg.add(i);
+        this.languageItems.put(l, i);
       }
     }
 
     menuBar.add(this.optionsMenu);
 
     // 'Help' menu
-    this.helpMenu = new JMenu(I18n.getLocalizedString("menu.help.text"));
-    this.helpMenu.setMnemonic(I18n.getLocalizedMnemonic("menu.help"));
+    this.helpMenu = new JMenu();
+    LocalizationRegistry.register(this.helpMenu, "menu.help");
 
     if (application.hasHelpDocumentation()) {
-      this.helpMenu.add(i = new JMenuItem(I18n.getLocalizedString("item.help.text")));
+      this.helpMenu.add(i = new JMenuItem());
       i.setIcon(ImagesUtil.HELP);
-      i.setMnemonic(I18n.getLocalizedMnemonic("item.help"));
+      LocalizationRegistry.register(i, "item.help");
       i.addActionListener(listeners.get(UserEvent.DefaultType.HELP));
     }
 
     if (application.hasAboutDialog()) {
-      this.helpMenu.add(i = new JMenuItem(I18n.getLocalizedString("item.about.text")));
-      i.setMnemonic(I18n.getLocalizedMnemonic("item.about"));
+      this.helpMenu.add(i = new JMenuItem());
+      LocalizationRegistry.register(i, "item.about");
       i.addActionListener(listeners.get(UserEvent.DefaultType.ABOUT));
     }
 
@@ -296,6 +407,15 @@ public abstract class ApplicationFrame<T extends ApplicationController<?>> exten
       this.checkUpdatesItem.setSelected(selected);
   }
 
+  /**
+   * Selects the item of the given language in the languages menu, if there is one.
+   */
+  public void setLanguageItemSelected(Language language) {
+    JMenuItem item = this.languageItems.get(language);
+    if (item != null)
+      item.setSelected(true);
+  }
+
   public static final int UPDATES_BLOCKED = 0;
   public static final int CHECKING_UPDATES = 1;
   public static final int NEW_UPDATE = 2;
@@ -313,6 +433,9 @@ public abstract class ApplicationFrame<T extends ApplicationController<?>> exten
     if (this.updateLbl == null)
       return;
 
+    this.updateMode = mode;
+    this.updateStr = str;
+
     Icon icon = null;
     String s = null;
 
@@ -352,7 +475,7 @@ public abstract class ApplicationFrame<T extends ApplicationController<?>> exten
    */
   public void showAboutDialog() {
     if (this.aboutDialog != null)
-      this.aboutDialog.setVisible(true);
+      this.aboutDialog.get().setVisible(true);
   }
 
   /**
@@ -363,8 +486,9 @@ public abstract class ApplicationFrame<T extends ApplicationController<?>> exten
    * @param changelog update's changelog
    */
   public void showUpdateDialog(Version version, String link, String changelog) {
-    this.updateDialog.setInfo(version, link, changelog);
-    this.updateDialog.setVisible(true);
+    UpdateDialog dialog = this.updateDialog.get();
+    dialog.setInfo(version, link, changelog);
+    dialog.setVisible(true);
   }
 
   /**
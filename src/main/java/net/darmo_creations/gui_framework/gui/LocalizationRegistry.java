@@ -0,0 +1,98 @@
+/*
+ * Copyright © 2017 Damien Vergnet
+ * 
+ * This file is part of GUI-Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.darmo_creations.gui_framework.gui;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.function.Consumer;
+
+import javax.swing.AbstractButton;
+import javax.swing.JLabel;
+
+import net.darmo_creations.utils.I18n;
+
+/**
+ * This registry holds the components whose text must be updated when the language changes. Only
+ * weak references to registered objects are kept so they do not have to be unregistered. All
+ * methods must be called from the Event Dispatch Thread.
+ *
+ * @author Damien Vergnet
+ */
+public final class LocalizationRegistry {
+  private static final Map<Object, List<Consumer<Object>>> RELOCALIZERS = new WeakHashMap<>();
+
+  /**
+   * Registers a button or menu item. Its text is given by the key {@code <key>.text} and its
+   * mnemonic by the key {@code <key>.mnemonic}. The text and mnemonic are also set immediately.
+   * 
+   * @param button the button
+   * @param key the localization key's prefix
+   */
+  public static void register(AbstractButton button, String key) {
+    Consumer<AbstractButton> relocalizer = b -> {
+      b.setText(I18n.getLocalizedString(key + ".text"));
+      b.setMnemonic(I18n.getLocalizedMnemonic(key));
+    };
+    relocalizer.accept(button);
+    register(button, relocalizer);
+  }
+
+  /**
+   * Registers a label. Its text is given by the key {@code <key>.text}. The text is also set
+   * immediately.
+   * 
+   * @param label the label
+   * @param key the localization key's prefix
+   */
+  public static void register(JLabel label, String key) {
+    Consumer<JLabel> relocalizer = l -> l.setText(I18n.getLocalizedString(key + ".text"));
+    relocalizer.accept(label);
+    register(label, relocalizer);
+  }
+
+  /**
+   * Registers a function that updates the texts of the given object. The function is called each
+   * time the language changes, as long as the object is reachable. The function receives the
+   * object and must not reference it by any other way or it will never be released.
+   * 
+   * @param owner the object the function relocalizes
+   * @param relocalizer the function
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> void register(T owner, Consumer<? super T> relocalizer) {
+    Objects.requireNonNull(relocalizer);
+    RELOCALIZERS.computeIfAbsent(Objects.requireNonNull(owner), k -> new ArrayList<>(1)).add((Consumer<Object>) relocalizer);
+  }
+
+  /**
+   * Updates all registered objects. Should be called after the language file has been reloaded.
+   */
+  public static void relocalize() {
+    // Copy as relocalizers may register new objects
+    Map<Object, List<Consumer<Object>>> relocalizers = new IdentityHashMap<>();
+    RELOCALIZERS.forEach((owner, list) -> relocalizers.put(owner, new ArrayList<>(list)));
+    relocalizers.forEach((owner, list) -> list.forEach(r -> r.accept(owner)));
+  }
+
+  private LocalizationRegistry() {}
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright © 2017 Damien Vergnet
+ * 
+ * This file is part of GUI-Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.darmo_creations.gui_framework.gui;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Image;
+import java.awt.Window;
+import java.util.Optional;
+
+import javax.swing.SwingUtilities;
+
+import net.darmo_creations.gui_framework.util.ImagesUtil;
+
+/**
+ * A lightweight splash window shown while the application starts. It is a plain AWT window that
+ * does not rely on the look and feel so it can be shown before the latter is installed. All
+ * methods can be called from any thread, they are executed on the Event Dispatch Thread.
+ *
+ * @author Damien Vergnet
+ */
+public final class StartupSplash {
+  private static final Dimension SIZE = new Dimension(400, 200);
+
+  private SplashWindow window;
+  private boolean closed;
+
+  /**
+   * Shows a splash window.
+   * 
+   * @param title the text to display
+   * @param imagePath path to the image to display
+   */
+  public StartupSplash(String title, Optional<String> imagePath) {
+    SwingUtilities.invokeLater(() -> {
+      if (!this.closed) {
+        this.window = new SplashWindow(title, imagePath.map(p -> ImagesUtil.getIcon(p).getImage()).orElse(null));
+        this.window.setVisible(true);
+      }
+    });
+  }
+
+  /**
+   * Updates the progress bar.
+   * 
+   * @param done number of completed steps
+   * @param total total number of steps
+   */
+  public void setProgress(int done, int total) {
+    SwingUtilities.invokeLater(() -> {
+      if (this.window != null) {
+        this.window.progress = total > 0 ? (float) done / total : 0;
+        this.window.repaint();
+      }
+    });
+  }
+
+  /**
+   * Closes the splash window.
+   */
+  public void close() {
+    SwingUtilities.invokeLater(() -> {
+      this.closed = true;
+      if (this.window != null) {
+        this.window.dispose();
+        this.window = null;
+      }
+    });
+  }
+
+  private static class SplashWindow extends Window {
+    private static final long serialVersionUID = 2591726346398618744L;
+
+    private final String title;
+    private final Image image;
+    private float progress;
+
+    SplashWindow(String title, Image image) {
+      super((Window) null);
+      this.title = title;
+      this.image = image;
+      setSize(SIZE);
+      setLocationRelativeTo(null);
+    }
+
+    @Override
+    public void update(Graphics g) {
+      paint(g);
+    }
+
+    @Override
+    public void paint(Graphics g) {
+      int w = getWidth(), h = getHeight();
+
+      g.setColor(Color.WHITE);
+      g.fillRect(0, 0, w, h);
+      g.setColor(Color.GRAY);
+      g.drawRect(0, 0, w - 1, h - 1);
+
+      int textY = h / 2;
+      if (this.image != null) {
+        int size = Math.min(100, Math.min(this.image.getWidth(this), this.image.getHeight(this)));
+        if (size > 0) {
+          g.drawImage(this.image, (w - size) / 2, 20, size, size, this);
+          textY = 20 + size + 30;
+        }
+      }
+
+      g.setColor(Color.DARK_GRAY);
+      g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 16));
+      FontMetrics fm = g.getFontMetrics();
+      g.drawString(this.title, (w - fm.stringWidth(this.title)) / 2, textY);
+
+      g.setColor(new Color(0x3C7FB1));
+      g.fillRect(1, h - 5, (int) ((w - 2) * this.progress), 4);
+    }
+  }
+}
@@ -26,7 +26,9 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Map;
 import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.swing.BoxLayout;
 import javax.swing.JEditorPane;
@@ -42,6 +44,8 @@ import javax.swing.text.html.StyleSheet;
 
 import net.darmo_creations.gui_framework.Application;
 import net.darmo_creations.gui_framework.ApplicationRegistry;
+import net.darmo_creations.gui_framework.startup.PreloadManifest;
+import net.darmo_creations.gui_framework.startup.StartupTraining;
 import net.darmo_creations.gui_framework.util.ImagesUtil;
 import net.darmo_creations.utils.I18n;
 import net.darmo_creations.utils.swing.ImageLabel;
@@ -51,6 +55,20 @@ import net.darmo_creations.utils.swing.dialog.DefaultDialogController;
 public class AboutDialog extends AbstractDialog {
   private static final long serialVersionUID = -1919314429757828369L;
 
+  /** Contents of the about files that have already been read */
+  private static final Map<String, String> HTML_CACHE = new ConcurrentHashMap<>();
+
+  /**
+   * Reads the about file and decodes the icons shown by this dialog so that creating it on the EDT
+   * does not have to. This method can be called from any thread.
+   */
+  public static void preloadResources() {
+    Application application = ApplicationRegistry.getApplication();
+    application.getIcon().ifPresent(ImagesUtil::getIcon);
+    application.getLicenseIcon().ifPresent(ImagesUtil::getIcon);
+    getHtml(application.getAboutFilePath());
+  }
+
   public AboutDialog(JFrame owner) {
     super(owner, Mode.CLOSE_OPTION, false);
 
@@ -97,8 +115,13 @@ public class AboutDialog extends AbstractDialog {
     setLocationRelativeTo(owner);
   }
 
-  private String getHtml(String filePath) {
-    try (BufferedReader br = new BufferedReader(new InputStreamReader(getClass().getResourceAsStream(filePath)))) {
+  private static String getHtml(String filePath) {
+    StartupTraining.record(PreloadManifest.Type.RESOURCE, filePath);
+    String html = HTML_CACHE.get(filePath);
+    if (html != null)
+      return html;
+
+    try (BufferedReader br = new BufferedReader(new InputStreamReader(AboutDialog.class.getResourceAsStream(filePath)))) {
       String line;
       StringJoiner sj = new StringJoiner("\n");
 
@@ -106,7 +129,9 @@ public class AboutDialog extends AbstractDialog {
         sj.add(line);
       }
 
-      return sj.toString();
+      html = sj.toString();
+      HTML_CACHE.putIfAbsent(filePath, html);
+      return html;
     }
     catch (IOException e) {
       e.printStackTrace();
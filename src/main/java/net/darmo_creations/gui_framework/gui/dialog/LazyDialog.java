@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2017 Damien Vergnet
+ * 
+ * This file is part of GUI-Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.darmo_creations.gui_framework.gui.dialog;
+
+import java.awt.Dialog;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import javax.swing.Timer;
+
+/**
+ * Holds a dialog that is created the first time it is requested. All methods must be called from
+ * the Event Dispatch Thread.
+ *
+ * @author Damien Vergnet
+ *
+ * @param <T> the type of the dialog
+ */
+public final class LazyDialog<T extends Dialog> {
+  /** Delay before a preloaded dialog is created, to let the frame be painted and respond first */
+  private static final int PRELOAD_DELAY_MILLIS = 500;
+
+  private final Supplier<T> factory;
+  private T dialog;
+
+  /**
+   * Creates a lazy dialog.
+   * 
+   * @param factory the function that creates the dialog
+   */
+  public LazyDialog(Supplier<T> factory) {
+    this.factory = Objects.requireNonNull(factory);
+  }
+
+  /**
+   * Returns the dialog, creating it if needed.
+   */
+  public T get() {
+    if (this.dialog == null)
+      this.dialog = this.factory.get();
+    return this.dialog;
+  }
+
+  /**
+   * @return true if the dialog has already been created
+   */
+  public boolean isCreated() {
+    return this.dialog != null;
+  }
+
+  /**
+   * Schedules the creation of the dialog on the EDT after a short delay. It should only be called
+   * once the owner frame is visible, e.g. when it has been opened, so that the creation does not
+   * delay its display.
+   */
+  public void preloadWhenIdle() {
+    Timer timer = new Timer(PRELOAD_DELAY_MILLIS, e -> get());
+    timer.setRepeats(false);
+    timer.start();
+  }
+
+  /**
+   * Disposes of the dialog if it has been created. It will be created again on the next call to
+   * {@link #get()}.
+   */
+  public void reset() {
+    if (this.dialog != null) {
+      this.dialog.dispose();
+      this.dialog = null;
+    }
+  }
+}
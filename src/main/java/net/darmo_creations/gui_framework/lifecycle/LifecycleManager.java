@@ -0,0 +1,202 @@
+/*
+ * Copyright © 2017 Damien Vergnet
+ * 
+ * This file is part of GUI-Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.darmo_creations.gui_framework.lifecycle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class manages the application's lifecycle. Participants can register shutdown tasks that
+ * will be executed concurrently when the application exits. Each task has its own deadline, tasks
+ * that did not complete in time are interrupted and reported. Critical tasks, that must not be
+ * abandoned half-way, are reported too but are left running on a non-daemon thread until they end.
+ *
+ * @author Damien Vergnet
+ */
+public final class LifecycleManager {
+  private final List<Task> tasks;
+  private volatile State state;
+
+  /**
+   * Creates a lifecycle manager in the {@link State#STARTING} state.
+   */
+  public LifecycleManager() {
+    this.tasks = new CopyOnWriteArrayList<>();
+    this.state = State.STARTING;
+  }
+
+  /**
+   * @return the current state
+   */
+  public State getState() {
+    return this.state;
+  }
+
+  /**
+   * Tells the application has started.
+   * 
+   * @throws IllegalStateException if the current state is not {@link State#STARTING}
+   */
+  public synchronized void setRunning() {
+    if (this.state != State.STARTING)
+      throw new IllegalStateException("cannot switch from " + this.state + " to " + State.RUNNING);
+    this.state = State.RUNNING;
+  }
+
+  /**
+   * Registers a task to execute when the application exits. Tasks are executed concurrently, no
+   * order is guaranteed.
+   * 
+   * @param name the task's name, used in reports
+   * @param task the task
+   * @param timeout maximum duration of the task
+   * @param unit timeout's unit
+   */
+  public void addShutdownTask(String name, Runnable task, long timeout, TimeUnit unit) {
+    this.tasks.add(new Task(Objects.requireNonNull(name), Objects.requireNonNull(task), unit.toNanos(timeout), false));
+  }
+
+  /**
+   * Registers a task that must not be interrupted, like writing a file. The task is executed on a
+   * non-daemon thread with the other ones; if it overruns its deadline, it is reported as timed out
+   * but the JVM will wait for it to complete before exiting.
+   * 
+   * @param name the task's name, used in reports
+   * @param task the task
+   * @param timeout expected maximum duration of the task
+   * @param unit timeout's unit
+   */
+  public void addCriticalShutdownTask(String name, Runnable task, long timeout, TimeUnit unit) {
+    this.tasks.add(new Task(Objects.requireNonNull(name), Objects.requireNonNull(task), unit.toNanos(timeout), true));
+  }
+
+  /**
+   * Executes all shutdown tasks and waits until they completed or their deadline passed. This
+   * method blocks and should not be called from the Event Dispatch Thread.
+   * 
+   * @return the report
+   * @throws IllegalStateException if the application is already stopping or stopped
+   */
+  public ShutdownReport shutdown() {
+    synchronized (this) {
+      if (this.state == State.STOPPING || this.state == State.STOPPED)
+        throw new IllegalStateException("already " + this.state);
+      this.state = State.STOPPING;
+    }
+
+    List<Task> tasks = new ArrayList<>(this.tasks);
+    List<ShutdownReport.TaskResult> results = new ArrayList<>(tasks.size());
+    AtomicInteger threadsCount = new AtomicInteger();
+    ExecutorService executor = Executors.newCachedThreadPool(r -> {
+      Thread t = new Thread(r, "shutdown-" + threadsCount.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+    ExecutorService criticalExecutor = Executors.newCachedThreadPool(r -> {
+      Thread t = new Thread(r, "shutdown-" + threadsCount.incrementAndGet());
+      t.setDaemon(false);
+      return t;
+    });
+
+    try {
+      long start = System.nanoTime();
+      List<Future<Long>> futures = new ArrayList<>(tasks.size());
+      for (Task task : tasks) {
+        futures.add((task.critical ? criticalExecutor : executor).submit(() -> {
+          long s = System.nanoTime();
+          task.task.run();
+          return System.nanoTime() - s;
+        }));
+      }
+
+      for (int i = 0; i < tasks.size(); i++) {
+        Task task = tasks.get(i);
+        Future<Long> future = futures.get(i);
+        long remaining = start + task.timeout - System.nanoTime();
+
+        try {
+          long duration = future.get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+          results.add(new ShutdownReport.TaskResult(task.name, ShutdownReport.Status.COMPLETED, duration, task.timeout, null));
+        }
+        catch (TimeoutException ex) {
+          if (!task.critical)
+            future.cancel(true);
+          results.add(new ShutdownReport.TaskResult(task.name, ShutdownReport.Status.TIMED_OUT, System.nanoTime() - start, task.timeout, null));
+        }
+        catch (ExecutionException ex) {
+          results.add(new ShutdownReport.TaskResult(task.name, ShutdownReport.Status.FAILED, System.nanoTime() - start, task.timeout,
+              ex.getCause()));
+        }
+        catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+          if (!task.critical)
+            future.cancel(true);
+          results.add(new ShutdownReport.TaskResult(task.name, ShutdownReport.Status.TIMED_OUT, System.nanoTime() - start, task.timeout, ex));
+        }
+      }
+    }
+    finally {
+      executor.shutdownNow();
+      // Lets overrunning critical tasks complete
+      criticalExecutor.shutdown();
+      this.state = State.STOPPED;
+    }
+
+    return new ShutdownReport(results);
+  }
+
+  /**
+   * Lifecycle states.
+   *
+   * @author Damien Vergnet
+   */
+  public static enum State {
+    /** The application is starting, its main frame is not visible yet. */
+    STARTING,
+    /** The main frame is visible. */
+    RUNNING,
+    /** Shutdown tasks are being executed. */
+    STOPPING,
+    /** All shutdown tasks have completed or timed out. */
+    STOPPED;
+  }
+
+  private static class Task {
+    final String name;
+    final Runnable task;
+    final long timeout;
+    final boolean critical;
+
+    Task(String name, Runnable task, long timeout, boolean critical) {
+      this.name = name;
+      this.task = task;
+      this.timeout = timeout;
+      this.critical = critical;
+    }
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright © 2017 Damien Vergnet
+ * 
+ * This file is part of GUI-Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.darmo_creations.gui_framework.lifecycle;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * The outcome of the shutdown tasks.
+ *
+ * @author Damien Vergnet
+ */
+public final class ShutdownReport {
+  private final List<TaskResult> results;
+
+  ShutdownReport(List<TaskResult> results) {
+    this.results = Collections.unmodifiableList(results);
+  }
+
+  /**
+   * @return the results of all tasks
+   */
+  public List<TaskResult> getResults() {
+    return this.results;
+  }
+
+  /**
+   * @return the results of the tasks that did not complete successfully in time
+   */
+  public List<TaskResult> getFailures() {
+    return this.results.stream().filter(r -> r.getStatus() != Status.COMPLETED).collect(Collectors.toList());
+  }
+
+  /**
+   * @return true if all tasks completed successfully in time
+   */
+  public boolean isSuccessful() {
+    return this.results.stream().allMatch(r -> r.getStatus() == Status.COMPLETED);
+  }
+
+  @Override
+  public String toString() {
+    return this.results.stream().map(TaskResult::toString).collect(Collectors.joining(", ", "ShutdownReport[", "]"));
+  }
+
+  /**
+   * Shutdown tasks outcomes.
+   *
+   * @author Damien Vergnet
+   */
+  public static enum Status {
+    /** The task completed in time. */
+    COMPLETED,
+    /** The task threw an exception. */
+    FAILED,
+    /**
+     * The task did not finish before its deadline. Non-critical tasks are interrupted; critical ones
+     * keep running until they complete.
+     */
+    TIMED_OUT;
+  }
+
+  /**
+   * The result of a shutdown task.
+   *
+   * @author Damien Vergnet
+   */
+  public static final class TaskResult {
+    private final String name;
+    private final Status status;
+    private final long duration, timeout;
+    private final Throwable error;
+
+    TaskResult(String name, Status status, long duration, long timeout, Throwable error) {
+      this.name = name;
+      this.status = status;
+      this.duration = duration;
+      this.timeout = timeout;
+      this.error = error;
+    }
+
+    /**
+     * @return the task's name
+     */
+    public String getName() {
+      return this.name;
+    }
+
+    /**
+     * @return the task's outcome
+     */
+    public Status getStatus() {
+      return this.status;
+    }
+
+    /**
+     * @return the task's duration in nanoseconds; for tasks that did not complete, the time elapsed
+     *         until they were reported
+     */
+    public long getDuration() {
+      return this.duration;
+    }
+
+    /**
+     * @return the task's timeout in nanoseconds
+     */
+    public long getTimeout() {
+      return this.timeout;
+    }
+
+    /**
+     * @return the exception thrown by the task if it failed
+     */
+    public Optional<Throwable> getError() {
+      return Optional.ofNullable(this.error);
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s: %s in %d ms", this.name, this.status, this.duration / 1_000_000);
+    }
+  }
+}
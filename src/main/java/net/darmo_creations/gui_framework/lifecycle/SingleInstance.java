@@ -0,0 +1,267 @@
+/*
+ * Copyright © 2017 Damien Vergnet
+ * 
+ * This file is part of GUI-Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.darmo_creations.gui_framework.lifecycle;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class ensures only one instance of an application runs for the current user. The first
+ * instance holds a lock file and listens on a loopback socket; subsequent launches forward their
+ * command-line arguments to it and exit.
+ * <p>
+ * Typical usage is:
+ *
+ * <pre>
+ * Optional&lt;SingleInstance&gt; instance = SingleInstance.acquire(name);
+ * if (!instance.isPresent() &amp;&amp; SingleInstance.forward(name, args))
+ *   return; // Handled by the running instance
+ * ...
+ * instance.ifPresent(i -&gt; i.listen(receiver));
+ * </pre>
+ * </p>
+ *
+ * @author Damien Vergnet
+ */
+public final class SingleInstance implements AutoCloseable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SingleInstance.class);
+
+  /** Maximum time to wait for the running instance to publish its port */
+  private static final long PORT_WAIT_MILLIS = 2000;
+  private static final int SOCKET_TIMEOUT_MILLIS = 2000;
+  /** Maximum time to wait for the running instance to acknowledge forwarded arguments */
+  private static final int ACK_TIMEOUT_MILLIS = 10_000;
+
+  /**
+   * Tries to become the running instance of the given application. Connections from other
+   * instances are accepted as soon as this method returns but their arguments are only delivered
+   * once {@link #listen(Consumer)} has been called.
+   * 
+   * @param applicationName the application's name
+   * @return the instance or an empty optional if another instance is already running
+   * @throws IOException if an I/O error occurs
+   */
+  public static Optional<SingleInstance> acquire(String applicationName) throws IOException {
+    Path lockFile = getFile(applicationName, ".lock");
+    FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    FileLock lock;
+    try {
+      lock = channel.tryLock();
+    }
+    catch (OverlappingFileLockException ex) {
+      lock = null;
+    }
+    if (lock == null) {
+      channel.close();
+      return Optional.empty();
+    }
+
+    try {
+      ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+      String token = UUID.randomUUID().toString();
+      Path portFile = getFile(applicationName, ".port");
+      Files.deleteIfExists(portFile);
+      Files.createFile(portFile);
+      try {
+        Files.setPosixFilePermissions(portFile, PosixFilePermissions.fromString("rw-------"));
+      }
+      catch (UnsupportedOperationException __) {}
+      Files.write(portFile, (server.getLocalPort() + "\n" + token).getBytes(StandardCharsets.UTF_8));
+      SingleInstance instance = new SingleInstance(lock, server, token, portFile);
+      instance.startAccepting();
+      return Optional.of(instance);
+    }
+    catch (IOException ex) {
+      lock.release();
+      channel.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Forwards arguments to the running instance of the given application. Once the arguments have
+   * been sent, the running instance may have received them even if it failed to acknowledge them;
+   * an exception is thrown in that case and the caller must not launch the application itself or
+   * they would be handled twice.
+   * 
+   * @param applicationName the application's name
+   * @param args the arguments
+   * @return true if the arguments have been delivered; false if no running instance could be
+   *         reached, nothing has been sent
+   * @throws IOException if the arguments have been sent but were not acknowledged
+   */
+  public static boolean forward(String applicationName, String[] args) throws IOException {
+    Path portFile = getFile(applicationName, ".port");
+    long deadline = System.currentTimeMillis() + PORT_WAIT_MILLIS;
+
+    while (true) {
+      Socket socket = null;
+      String token = null;
+      try {
+        List<String> lines = Files.readAllLines(portFile, StandardCharsets.UTF_8);
+        if (lines.size() == 2) {
+          token = lines.get(1);
+          socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(lines.get(0)));
+        }
+      }
+      catch (NoSuchFileException __) {}
+      catch (IOException | NumberFormatException ex) {
+        LOGGER.debug("Could not reach running instance", ex);
+        return false;
+      }
+
+      if (socket != null) {
+        try (Socket s = socket) {
+          // The running instance accepts connections as soon as it holds the lock
+          s.setSoTimeout(ACK_TIMEOUT_MILLIS);
+          DataOutputStream out = new DataOutputStream(s.getOutputStream());
+          out.writeUTF(token);
+          out.writeInt(args.length);
+          for (String arg : args)
+            out.writeUTF(arg);
+          out.flush();
+          if (s.getInputStream().read() != 1)
+            throw new IOException("arguments were not acknowledged");
+          return true;
+        }
+      }
+
+      if (System.currentTimeMillis() > deadline)
+        return false;
+      try {
+        Thread.sleep(50);
+      }
+      catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+  }
+
+  private static Path getFile(String applicationName, String extension) {
+    String name = (applicationName + "-" + System.getProperty("user.name")).replaceAll("\\W+", "_");
+    return Paths.get(System.getProperty("java.io.tmpdir"), name + extension);
+  }
+
+  private final FileLock lock;
+  private final ServerSocket server;
+  private final String token;
+  private final Path portFile;
+  /** Arguments received before {@link #listen(Consumer)} was called */
+  private final List<String[]> pending;
+  private Consumer<String[]> receiver;
+
+  private SingleInstance(FileLock lock, ServerSocket server, String token, Path portFile) {
+    this.lock = lock;
+    this.server = server;
+    this.token = token;
+    this.portFile = portFile;
+    this.pending = new ArrayList<>();
+  }
+
+  /**
+   * Starts accepting connections from other instances. Their arguments are queued until a receiver
+   * is set and acknowledged right away.
+   */
+  private void startAccepting() {
+    Thread t = new Thread(() -> {
+      while (!this.server.isClosed()) {
+        try (Socket socket = this.server.accept()) {
+          socket.setSoTimeout(SOCKET_TIMEOUT_MILLIS);
+          DataInputStream in = new DataInputStream(socket.getInputStream());
+          if (!this.token.equals(in.readUTF()))
+            continue;
+          String[] args = new String[in.readInt()];
+          for (int i = 0; i < args.length; i++)
+            args[i] = in.readUTF();
+          // Acknowledged once queued so that the other instance knows they will be handled
+          deliver(args);
+          socket.getOutputStream().write(1);
+        }
+        catch (IOException ex) {
+          if (!this.server.isClosed())
+            LOGGER.debug("Invalid connection from another instance", ex);
+        }
+      }
+    }, "single-instance");
+    t.setDaemon(true);
+    t.start();
+  }
+
+  private synchronized void deliver(String[] args) {
+    if (this.receiver == null)
+      this.pending.add(args);
+    else
+      this.receiver.accept(args);
+  }
+
+  /**
+   * Starts delivering the arguments forwarded by other instances, beginning with those received
+   * since this instance was acquired. The receiver is called from a background thread and should
+   * return quickly.
+   * 
+   * @param receiver the function receiving the arguments
+   * @throws IllegalStateException if a receiver has already been set
+   */
+  public synchronized void listen(Consumer<String[]> receiver) {
+    if (this.receiver != null)
+      throw new IllegalStateException("already listening");
+    this.receiver = receiver;
+    this.pending.forEach(receiver);
+    this.pending.clear();
+  }
+
+  /**
+   * Stops listening and releases the lock.
+   */
+  @Override
+  public void close() {
+    try {
+      this.server.close();
+      Files.deleteIfExists(this.portFile);
+      this.lock.release();
+      this.lock.channel().close();
+    }
+    catch (IOException ex) {
+      LOGGER.debug("Could not release single instance lock", ex);
+    }
+  }
+}
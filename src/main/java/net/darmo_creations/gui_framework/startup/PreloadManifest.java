@@ -0,0 +1,215 @@
+/*
+ * Copyright © 2017 Damien Vergnet
+ * 
+ * This file is part of GUI-Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.darmo_creations.gui_framework.startup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import net.darmo_creations.gui_framework.util.ImagesUtil;
+
+/**
+ * A preload manifest lists the classes and classpath resources used during the application's
+ * startup. It is produced by the training mode (see {@link StartupTraining}) and used by later
+ * launches to load them in the background, before they are actually needed.
+ * <p>
+ * The file format is one entry per line: the entry type followed by a space and the class name or
+ * resource path. Empty lines and lines starting with '#' are ignored.
+ * </p>
+ *
+ * @author Damien Vergnet
+ */
+public final class PreloadManifest {
+  private final Map<Type, Set<String>> entries;
+
+  /**
+   * Creates an empty manifest.
+   */
+  public PreloadManifest() {
+    this.entries = new EnumMap<>(Type.class);
+    for (Type type : Type.values())
+      this.entries.put(type, new LinkedHashSet<>());
+  }
+
+  /**
+   * Adds an entry.
+   * 
+   * @param type entry type
+   * @param value class name or resource path
+   */
+  public synchronized void add(Type type, String value) {
+    this.entries.get(type).add(Objects.requireNonNull(value));
+  }
+
+  /**
+   * Returns all entries of the given type in the order they were added.
+   */
+  public synchronized List<String> get(Type type) {
+    return Collections.unmodifiableList(new ArrayList<>(this.entries.get(type)));
+  }
+
+  /**
+   * Starts preloading the manifest's entries. Each entry type is loaded by its own daemon thread;
+   * nothing waits for them so that the startup is never delayed, entries not loaded yet when they
+   * are needed are simply loaded as usual. Entries that no longer exist are ignored.
+   * 
+   * @param classLoader the class loader used to load classes
+   */
+  public void preload(ClassLoader classLoader) {
+    List<String> icons = get(Type.ICON);
+    List<String> resources = get(Type.RESOURCE);
+    List<String> classes = get(Type.CLASS);
+
+    if (!icons.isEmpty()) {
+      startThread("preload-icons", () -> {
+        for (String path : icons) {
+          if (ImagesUtil.class.getResource(path) != null)
+            ImagesUtil.getIcon(path);
+        }
+      });
+    }
+    if (!resources.isEmpty()) {
+      startThread("preload-resources", () -> {
+        byte[] buffer = new byte[8192];
+        for (String path : resources) {
+          // Reading the resource warms the jar index and the OS file cache
+          try (InputStream in = PreloadManifest.class.getResourceAsStream(path)) {
+            if (in != null)
+              while (in.read(buffer) >= 0);
+          }
+          catch (IOException __) {}
+        }
+      });
+    }
+    if (!classes.isEmpty()) {
+      startThread("preload-classes", () -> {
+        for (String name : classes) {
+          try {
+            Class.forName(name, false, classLoader);
+          }
+          catch (ClassNotFoundException | LinkageError __) {}
+        }
+      });
+    }
+  }
+
+  private static void startThread(String name, Runnable task) {
+    Thread t = new Thread(task, name);
+    t.setDaemon(true);
+    t.start();
+  }
+
+  /**
+   * Loads a manifest.
+   * 
+   * @param file the file to read
+   * @return the manifest or null if the file does not exist
+   * @throws IOException if an I/O error occurs
+   */
+  public static PreloadManifest load(Path file) throws IOException {
+    PreloadManifest manifest = new PreloadManifest();
+
+    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        line = line.trim();
+        if (line.isEmpty() || line.startsWith("#"))
+          continue;
+        int i = line.indexOf(' ');
+        if (i < 0)
+          continue;
+        Type type = Type.fromName(line.substring(0, i));
+        if (type != null)
+          manifest.add(type, line.substring(i + 1).trim());
+      }
+    }
+    catch (NoSuchFileException ex) {
+      return null;
+    }
+
+    return manifest;
+  }
+
+  /**
+   * Saves this manifest.
+   * 
+   * @param file the file to write to
+   * @throws IOException if an I/O error occurs
+   */
+  public synchronized void save(Path file) throws IOException {
+    try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      writer.write("# Generated by the startup training mode" + System.lineSeparator());
+      for (Type type : Type.values()) {
+        for (String value : this.entries.get(type))
+          writer.write(type.getName() + " " + value + System.lineSeparator());
+      }
+    }
+  }
+
+  /**
+   * Types of manifest entries.
+   *
+   * @author Damien Vergnet
+   */
+  public static enum Type {
+    /** An image decoded through {@code ImagesUtil}. */
+    ICON("icon"),
+    /** Any other classpath resource. */
+    RESOURCE("resource"),
+    /** A class. */
+    CLASS("class");
+
+    private final String name;
+
+    private Type(String name) {
+      this.name = name;
+    }
+
+    /**
+     * @return the name used in manifest files
+     */
+    public String getName() {
+      return this.name;
+    }
+
+    /**
+     * Returns the type with the given name or null if none match.
+     */
+    public static Type fromName(String name) {
+      for (Type type : values()) {
+        if (type.name.equals(name))
+          return type;
+      }
+      return null;
+    }
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright © 2017 Damien Vergnet
+ * 
+ * This file is part of GUI-Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.darmo_creations.gui_framework.startup;
+
+/**
+ * This exception is thrown when a stage of a {@link StartupPipeline} failed.
+ *
+ * @author Damien Vergnet
+ */
+public class StartupException extends RuntimeException {
+  private static final long serialVersionUID = -2405185536404386178L;
+
+  private final String stageName;
+
+  /**
+   * Creates an exception.
+   * 
+   * @param stageName the name of the stage that failed; may be null if unknown
+   * @param cause the exception thrown by the stage
+   */
+  public StartupException(String stageName, Throwable cause) {
+    super(stageName != null ? "startup stage " + stageName + " failed" : "startup failed", cause);
+    this.stageName = stageName;
+  }
+
+  /**
+   * @return the name of the stage that failed or null if unknown
+   */
+  public String getStageName() {
+    return this.stageName;
+  }
+}
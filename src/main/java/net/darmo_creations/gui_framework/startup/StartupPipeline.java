@@ -0,0 +1,261 @@
+/*
+ * Copyright © 2017 Damien Vergnet
+ * 
+ * This file is part of GUI-Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.darmo_creations.gui_framework.startup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * A startup pipeline is a set of named initialization stages with declared dependencies. When the
+ * pipeline is run, each stage is executed as soon as all of its dependencies have completed, stages
+ * that do not depend on each other being executed at the same time on a bounded pool of threads.
+ * <p>
+ * Stages must not create or modify any Swing component as they are not executed on the Event
+ * Dispatch Thread.
+ * </p>
+ *
+ * @author Damien Vergnet
+ */
+public final class StartupPipeline {
+  /** Name of the stage that loads the configuration. Its result is the {@code WritableConfig}. */
+  public static final String CONFIG = "config";
+  /** Name of the stage that loads the language file. Depends on {@link #CONFIG}. */
+  public static final String LANGUAGE = "language";
+  /** Name of the stage that installs the look and feel. Depends on {@link #CONFIG}. */
+  public static final String LOOK_AND_FEEL = "look_and_feel";
+  /**
+   * Name of the stage that decodes the framework's and application's icons. Depends on
+   * {@link #LOOK_AND_FEEL} so that no Swing class is used while the look and feel is installed.
+   */
+  public static final String ICONS = "icons";
+
+  private final int parallelism;
+  private final Map<String, Stage> stages;
+  private BiConsumer<Integer, Integer> progressListener;
+  private boolean ran;
+
+  /**
+   * Creates an empty pipeline.
+   *
+   * @param parallelism the maximum number of stages executed at the same time
+   * @throws IllegalArgumentException if parallelism is less than 1
+   */
+  public StartupPipeline(int parallelism) {
+    if (parallelism < 1)
+      throw new IllegalArgumentException("parallelism must be at least 1");
+    this.parallelism = parallelism;
+    this.stages = new LinkedHashMap<>();
+  }
+
+  /**
+   * Adds a stage to this pipeline. Dependencies do not have to be registered yet but must be when
+   * the pipeline is run.
+   *
+   * @param name the stage's name
+   * @param task the task to execute; its result will be available through
+   *          {@link #getResult(String)}
+   * @param dependencies the names of the stages that must complete before this one starts
+   * @throws IllegalArgumentException if a stage with the same name is already registered
+   * @throws IllegalStateException if the pipeline has already been run
+   */
+  public synchronized void addStage(String name, Callable<?> task, String... dependencies) {
+    if (this.ran)
+      throw new IllegalStateException("pipeline already run");
+    if (this.stages.containsKey(Objects.requireNonNull(name)))
+      throw new IllegalArgumentException("duplicate stage " + name);
+    this.stages.put(name, new Stage(name, Objects.requireNonNull(task), Arrays.asList(dependencies)));
+  }
+
+  /**
+   * Tells if a stage with the given name is registered.
+   */
+  public synchronized boolean hasStage(String name) {
+    return this.stages.containsKey(name);
+  }
+
+  /**
+   * Returns the names of all registered stages in registration order.
+   */
+  public synchronized Set<String> getStageNames() {
+    return Collections.unmodifiableSet(new LinkedHashSet<>(this.stages.keySet()));
+  }
+
+  /**
+   * Sets the listener notified each time a stage completes. It receives the number of completed
+   * stages and the total number of stages and is called from the thread that ran the stage.
+   * 
+   * @param listener the listener; may be null
+   */
+  public synchronized void setProgressListener(BiConsumer<Integer, Integer> listener) {
+    this.progressListener = listener;
+  }
+
+  /**
+   * Returns the result of a stage. This method may be called from a stage that declared the
+   * requested stage as a dependency or once the pipeline has completed.
+   *
+   * @param name the stage's name
+   * @return the stage's result
+   * @throws IllegalArgumentException if no stage with this name exists
+   * @throws IllegalStateException if the stage has not completed yet
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T getResult(String name) {
+    Stage stage;
+    synchronized (this) {
+      stage = this.stages.get(name);
+    }
+    if (stage == null)
+      throw new IllegalArgumentException("unknown stage " + name);
+    if (!stage.done)
+      throw new IllegalStateException("stage " + name + " has not completed");
+    return (T) stage.result;
+  }
+
+  /**
+   * Runs all stages and waits until they have completed. This method can be called only once.
+   *
+   * @throws IllegalStateException if the pipeline has already been run, a dependency is missing or
+   *           dependencies form a cycle
+   * @throws StartupException if a stage failed
+   */
+  public void run() {
+    Map<String, Stage> stages;
+    BiConsumer<Integer, Integer> listener;
+    synchronized (this) {
+      if (this.ran)
+        throw new IllegalStateException("pipeline already run");
+      this.ran = true;
+      stages = new LinkedHashMap<>(this.stages);
+      listener = this.progressListener;
+    }
+    List<Stage> ordered = sort(stages);
+
+    AtomicInteger threadsCount = new AtomicInteger();
+    int threads = Math.min(this.parallelism, Math.max(1, ordered.size()));
+    ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+      Thread t = new Thread(r, "startup-" + threadsCount.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+
+    try {
+      AtomicInteger done = new AtomicInteger();
+      Map<String, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+      for (Stage stage : ordered) {
+        CompletableFuture<?>[] deps = stage.dependencies.stream().map(futures::get).toArray(CompletableFuture<?>[]::new);
+        futures.put(stage.name, CompletableFuture.allOf(deps).thenRunAsync(() -> {
+          stage.execute();
+          if (listener != null)
+            listener.accept(done.incrementAndGet(), ordered.size());
+        }, executor));
+      }
+      CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).join();
+    }
+    catch (CompletionException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof StartupException)
+        throw (StartupException) cause;
+      throw new StartupException(null, cause);
+    }
+    finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Sorts the stages so that every stage comes after its dependencies.
+   *
+   * @throws IllegalStateException if a dependency is missing or there is a cycle
+   */
+  private static List<Stage> sort(Map<String, Stage> stages) {
+    List<Stage> ordered = new ArrayList<>(stages.size());
+    Set<String> visited = new HashSet<>();
+    Set<String> visiting = new HashSet<>();
+
+    for (Stage stage : stages.values())
+      visit(stage, stages, visited, visiting, ordered);
+
+    return ordered;
+  }
+
+  private static void visit(Stage stage, Map<String, Stage> stages, Set<String> visited, Set<String> visiting, List<Stage> ordered) {
+    if (visited.contains(stage.name))
+      return;
+    if (!visiting.add(stage.name))
+      throw new IllegalStateException("cyclic dependency on stage " + stage.name);
+
+    for (String dep : stage.dependencies) {
+      Stage s = stages.get(dep);
+      if (s == null)
+        throw new IllegalStateException("stage " + stage.name + " depends on unknown stage " + dep);
+      visit(s, stages, visited, visiting, ordered);
+    }
+
+    visiting.remove(stage.name);
+    visited.add(stage.name);
+    ordered.add(stage);
+  }
+
+  private static class Stage {
+    final String name;
+    final Callable<?> task;
+    final List<String> dependencies;
+    volatile Object result;
+    volatile boolean done;
+
+    Stage(String name, Callable<?> task, List<String> dependencies) {
+      this.name = name;
+      this.task = task;
+      this.dependencies = dependencies;
+    }
+
+    void execute() {
+      StartupProfiler.Phase phase = StartupProfiler.begin("stage." + this.name);
+      try {
+        this.result = this.task.call();
+        this.done = true;
+      }
+      catch (StartupException ex) {
+        throw ex;
+      }
+      catch (Exception ex) {
+        throw new StartupException(this.name, ex);
+      }
+      finally {
+        phase.end();
+      }
+    }
+  }
+}
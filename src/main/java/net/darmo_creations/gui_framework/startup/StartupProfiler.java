@@ -0,0 +1,364 @@
+/*
+ * Copyright © 2017 Damien Vergnet
+ * 
+ * This file is part of GUI-Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.darmo_creations.gui_framework.startup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class records the timeline of the application's startup. Each phase has nanosecond timings
+ * along with thread, allocation and class loading counters. Phases are only recorded if the
+ * {@value #TRACE_PROPERTY} system property is set, they cost nothing otherwise. Recording stops
+ * once the main frame is shown; the timeline is then exported in the Chrome trace format (see
+ * {@code chrome://tracing}) to the file denoted by that property.
+ * <p>
+ * Typical usage is:
+ *
+ * <pre>
+ * StartupProfiler.run("my_phase", () -&gt; ...);
+ * </pre>
+ *
+ * or, if the phase's code throws checked exceptions:
+ *
+ * <pre>
+ * StartupProfiler.Phase phase = StartupProfiler.begin("my_phase");
+ * try {
+ *   ...
+ * }
+ * finally {
+ *   phase.end();
+ * }
+ * </pre>
+ * </p>
+ *
+ * @author Damien Vergnet
+ */
+public final class StartupProfiler {
+  /** System property holding the path of the trace file */
+  public static final String TRACE_PROPERTY = "gui_framework.startup.trace";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(StartupProfiler.class);
+
+  private static final Phase NO_OP = new Phase(null);
+
+  private static final List<Record> RECORDS = new ArrayList<>();
+  private static volatile boolean recording = System.getProperty(TRACE_PROPERTY) != null;
+
+  /**
+   * Starts a phase on the current thread. The returned phase must be ended by calling
+   * {@link Phase#end()}. If recording is disabled or has stopped, a phase that records nothing is
+   * returned.
+   *
+   * @param name the phase's name
+   * @return the started phase
+   */
+  public static Phase begin(String name) {
+    return recording ? new Phase(name) : NO_OP;
+  }
+
+  /**
+   * Runs a task as a phase on the current thread.
+   *
+   * @param name the phase's name
+   * @param task the task
+   */
+  public static void run(String name, Runnable task) {
+    Phase phase = begin(name);
+    try {
+      task.run();
+    }
+    finally {
+      phase.end();
+    }
+  }
+
+  /**
+   * Runs a task as a phase on the current thread and returns its result.
+   *
+   * @param name the phase's name
+   * @param task the task
+   * @return the task's result
+   */
+  public static <T> T call(String name, Supplier<T> task) {
+    Phase phase = begin(name);
+    try {
+      return task.get();
+    }
+    finally {
+      phase.end();
+    }
+  }
+
+  /**
+   * Returns a copy of all phases recorded so far, in the order they ended.
+   */
+  public static List<Record> getRecords() {
+    synchronized (RECORDS) {
+      return Collections.unmodifiableList(new ArrayList<>(RECORDS));
+    }
+  }
+
+  /**
+   * Tells if phases are still recorded.
+   */
+  public static boolean isRecording() {
+    return recording;
+  }
+
+  /**
+   * Clears all records and enables or disables recording. Used by tests.
+   */
+  static void reset(boolean recording) {
+    synchronized (RECORDS) {
+      RECORDS.clear();
+    }
+    StartupProfiler.recording = recording;
+  }
+
+  /**
+   * Stops recording and exports the timeline if the {@value #TRACE_PROPERTY} system property is
+   * set. Subsequent calls have no effects.
+   */
+  public static void stop() {
+    if (!recording)
+      return;
+    recording = false;
+
+    String path = System.getProperty(TRACE_PROPERTY);
+    if (path != null) {
+      try (Writer writer = Files.newBufferedWriter(Paths.get(path), StandardCharsets.UTF_8)) {
+        export(writer);
+      }
+      catch (IOException ex) {
+        LOGGER.warn("Could not export startup trace to " + path, ex);
+      }
+    }
+  }
+
+  /**
+   * Writes all recorded phases in the Chrome trace format. Timestamps are relative to the JVM's
+   * start.
+   *
+   * @param writer the destination; it is not closed
+   * @throws IOException if an I/O error occurs
+   */
+  public static void export(Writer writer) throws IOException {
+    writer.write("{\"displayTimeUnit\":\"ns\",\"traceEvents\":[");
+    boolean first = true;
+    for (Record r : getRecords()) {
+      if (!first)
+        writer.write(',');
+      first = false;
+      writer.write(String.format(Locale.ROOT,
+          "%n{\"name\":\"%s\",\"cat\":\"startup\",\"ph\":\"X\",\"pid\":1,\"tid\":%d,\"ts\":%.3f,\"dur\":%.3f,\"args\":{\"thread\":\"%s\","
+              + "\"startNanos\":%d,\"durationNanos\":%d,\"allocatedBytes\":%d,\"liveThreads\":%d,\"loadedClasses\":%d}}",
+          escape(r.getName()), r.getThreadId(), (r.getStartNanos() - Beans.ORIGIN) / 1000.0, r.getDuration() / 1000.0,
+          escape(r.getThreadName()), r.getStartNanos() - Beans.ORIGIN, r.getDuration(), r.getAllocatedBytes(), r.getLiveThreads(),
+          r.getLoadedClasses()));
+    }
+    writer.write(String.format("%n]}%n"));
+  }
+
+  private static String escape(String s) {
+    StringBuilder sb = new StringBuilder(s.length());
+    for (char c : s.toCharArray()) {
+      if (c == '"' || c == '\\')
+        sb.append('\\').append(c);
+      else if (c < 0x20)
+        sb.append(String.format("\\u%04x", (int) c));
+      else
+        sb.append(c);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Returns the number of bytes allocated by the given thread or -1 if the JVM does not support it.
+   */
+  private static long allocatedBytes(long threadId) {
+    if (Beans.THREADS instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) Beans.THREADS;
+      if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled())
+        return threads.getThreadAllocatedBytes(threadId);
+    }
+    return -1;
+  }
+
+  /**
+   * Holds the management beans so that they are only initialized when the first phase is recorded.
+   */
+  private static final class Beans {
+    /** Approximation of the JVM start in the {@link System#nanoTime()} time base */
+    static final long ORIGIN = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(ManagementFactory.getRuntimeMXBean().getUptime());
+    static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    static final ClassLoadingMXBean CLASSES = ManagementFactory.getClassLoadingMXBean();
+  }
+
+  /**
+   * A phase being recorded.
+   *
+   * @author Damien Vergnet
+   */
+  public static final class Phase {
+    private final String name;
+    private final Thread thread;
+    private final long start, startAllocated, startClasses;
+    private boolean ended;
+
+    private Phase(String name) {
+      this.name = name;
+      this.thread = Thread.currentThread();
+      if (name != null) {
+        this.startAllocated = allocatedBytes(this.thread.getId());
+        this.startClasses = Beans.CLASSES.getTotalLoadedClassCount();
+        this.start = System.nanoTime();
+      }
+      else {
+        this.start = this.startAllocated = this.startClasses = 0;
+      }
+    }
+
+    /**
+     * Ends this phase. Must be called from the thread that started it. Subsequent calls have no
+     * effects.
+     */
+    public void end() {
+      if (this.name == null || this.ended)
+        return;
+      long end = System.nanoTime();
+      this.ended = true;
+
+      long allocated = this.startAllocated < 0 ? -1 : allocatedBytes(this.thread.getId()) - this.startAllocated;
+      Record record = new Record(this.name, this.thread.getName(), this.thread.getId(), this.start, end, allocated,
+          Beans.THREADS.getThreadCount(), Beans.CLASSES.getTotalLoadedClassCount() - this.startClasses);
+      synchronized (RECORDS) {
+        RECORDS.add(record);
+      }
+    }
+  }
+
+  /**
+   * A recorded phase.
+   *
+   * @author Damien Vergnet
+   */
+  public static final class Record {
+    private final String name, threadName;
+    private final long threadId, startNanos, endNanos, allocatedBytes, loadedClasses;
+    private final int liveThreads;
+
+    private Record(String name, String threadName, long threadId, long startNanos, long endNanos, long allocatedBytes, int liveThreads,
+        long loadedClasses) {
+      this.name = name;
+      this.threadName = threadName;
+      this.threadId = threadId;
+      this.startNanos = startNanos;
+      this.endNanos = endNanos;
+      this.allocatedBytes = allocatedBytes;
+      this.liveThreads = liveThreads;
+      this.loadedClasses = loadedClasses;
+    }
+
+    /**
+     * @return the phase's name
+     */
+    public String getName() {
+      return this.name;
+    }
+
+    /**
+     * @return the name of the thread the phase ran on
+     */
+    public String getThreadName() {
+      return this.threadName;
+    }
+
+    /**
+     * @return the ID of the thread the phase ran on
+     */
+    public long getThreadId() {
+      return this.threadId;
+    }
+
+    /**
+     * @return the start timestamp as returned by {@link System#nanoTime()}
+     */
+    public long getStartNanos() {
+      return this.startNanos;
+    }
+
+    /**
+     * @return the end timestamp as returned by {@link System#nanoTime()}
+     */
+    public long getEndNanos() {
+      return this.endNanos;
+    }
+
+    /**
+     * @return the duration in nanoseconds
+     */
+    public long getDuration() {
+      return this.endNanos - this.startNanos;
+    }
+
+    /**
+     * @return the number of bytes allocated by the phase's thread during the phase or -1 if the JVM
+     *         does not support it
+     */
+    public long getAllocatedBytes() {
+      return this.allocatedBytes;
+    }
+
+    /**
+     * @return the number of live threads when the phase ended
+     */
+    public int getLiveThreads() {
+      return this.liveThreads;
+    }
+
+    /**
+     * @return the number of classes loaded by the JVM during the phase (by any thread)
+     */
+    public long getLoadedClasses() {
+      return this.loadedClasses;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s [%s] %.3f ms", this.name, this.threadName, getDuration() / 1e6);
+    }
+  }
+
+  private StartupProfiler() {}
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright © 2017 Damien Vergnet
+ * 
+ * This file is part of GUI-Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.darmo_creations.gui_framework.startup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.lang.management.ManagementFactory;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.darmo_creations.gui_framework.lifecycle.LifecycleManager;
+import net.darmo_creations.utils.JarUtil;
+
+/**
+ * The startup training mode records the classes and resources loaded during a real run. It is
+ * enabled by setting the {@value #TRAINING_PROPERTY} system property to true. Icons and resources
+ * are recorded on first use, including those of lazily created dialogs, and a
+ * {@link PreloadManifest} is written in the jar's directory when the application exits; later
+ * launches use it to load these resources in parallel.
+ * <p>
+ * Loaded classes can only be recorded by the JVM itself: if it has been started with the
+ * {@code -XX:DumpLoadedClassList=<file>} option, the classes loaded until the main frame is shown
+ * are added to the manifest and a class data sharing archive is generated from them in the
+ * background. The JVM must then be started with the {@code -XX:SharedArchiveFile=<archive>} option
+ * to use it.
+ * </p>
+ *
+ * @author Damien Vergnet
+ */
+public final class StartupTraining {
+  /** System property enabling the training mode */
+  public static final String TRAINING_PROPERTY = "gui_framework.startup.training";
+  /** Name of the preload manifest file */
+  public static final String MANIFEST_FILE = "startup.manifest";
+  /** Name of the file listing the classes loaded during startup */
+  public static final String CLASS_LIST_FILE = "startup.classlist";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(StartupTraining.class);
+
+  private static final String CLASS_LIST_OPTION = "-XX:DumpLoadedClassList=";
+  private static final String ARCHIVE_AT_EXIT_OPTION = "-XX:ArchiveClassesAtExit=";
+  /** Expected time to save the results once the application exits */
+  private static final long SAVE_TIMEOUT = 10;
+
+  private static final PreloadManifest RECORDED = new PreloadManifest();
+  private static final AtomicBoolean FINISHED = new AtomicBoolean();
+  private static volatile boolean recording = Boolean.getBoolean(TRAINING_PROPERTY);
+
+  /**
+   * Tells if the training mode is enabled and still recording.
+   */
+  public static boolean isRecording() {
+    return recording;
+  }
+
+  /**
+   * Records a resource loaded during startup. Does nothing if not recording.
+   * 
+   * @param type the entry type
+   * @param value the class name or resource path
+   */
+  public static void record(PreloadManifest.Type type, String value) {
+    if (recording)
+      RECORDED.add(type, value);
+  }
+
+  /**
+   * Loads the manifest produced by a previous training.
+   * 
+   * @return the manifest or an empty optional if there is none or it could not be read
+   */
+  public static Optional<PreloadManifest> loadManifest() {
+    try {
+      Optional<Path> dir = getDirectory();
+      if (!dir.isPresent())
+        return Optional.empty();
+      return Optional.ofNullable(PreloadManifest.load(dir.get().resolve(MANIFEST_FILE)));
+    }
+    catch (IOException ex) {
+      LOGGER.warn("Could not read the preload manifest", ex);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Records the classes loaded so far and generates the class data sharing archive if possible, in
+   * the background. Icons and resources are still recorded until the application exits, then the
+   * manifest is written by a critical shutdown task. Does nothing if not recording or already
+   * called.
+   * 
+   * @param archiveName base name of the archive file
+   * @param lifecycle the lifecycle manager the shutdown task is registered to
+   */
+  public static void finish(String archiveName, LifecycleManager lifecycle) {
+    if (!recording || !FINISHED.compareAndSet(false, true))
+      return;
+
+    // Not a daemon thread so that the archive is generated even if the application exits meanwhile
+    Thread t = new Thread(() -> {
+      try {
+        recordClasses(archiveName);
+      }
+      catch (IOException ex) {
+        LOGGER.warn("Could not save the startup class list", ex);
+      }
+      catch (InterruptedException __) {
+        Thread.currentThread().interrupt();
+      }
+    }, "startup-training");
+    t.start();
+
+    lifecycle.addCriticalShutdownTask("save_startup_training", () -> {
+      recording = false;
+      try {
+        t.join();
+      }
+      catch (InterruptedException __) {
+        Thread.currentThread().interrupt();
+      }
+      try {
+        Optional<Path> dir = getDirectory();
+        if (dir.isPresent())
+          RECORDED.save(dir.get().resolve(MANIFEST_FILE));
+        else
+          LOGGER.warn("Could not save startup training results: the jar's directory cannot be found");
+      }
+      catch (IOException ex) {
+        LOGGER.warn("Could not save startup training results", ex);
+      }
+    }, SAVE_TIMEOUT, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Copies the classes listed so far by the JVM to the startup class list, adds them to the manifest
+   * and generates the archive from them.
+   */
+  private static void recordClasses(String archiveName) throws IOException, InterruptedException {
+    List<String> args = ManagementFactory.getRuntimeMXBean().getInputArguments();
+    Optional<String> classList = args.stream().filter(a -> a.startsWith(CLASS_LIST_OPTION)).map(
+        a -> a.substring(CLASS_LIST_OPTION.length())).findFirst();
+    if (!classList.isPresent()) {
+      LOGGER.info("Start the JVM with {}<file> to also generate a class data sharing archive", CLASS_LIST_OPTION);
+      return;
+    }
+    Optional<Path> directory = getDirectory();
+    if (!directory.isPresent()) {
+      LOGGER.warn("Could not save the startup class list: the jar's directory cannot be found");
+      return;
+    }
+
+    Path dir = directory.get();
+    Path startupClassList = dir.resolve(CLASS_LIST_FILE);
+    // The JVM keeps appending to the list, only complete lines are kept
+    byte[] bytes = Files.readAllBytes(Paths.get(classList.get()));
+    int length = bytes.length;
+    while (length > 0 && bytes[length - 1] != '\n')
+      length--;
+    List<String> lines = Arrays.asList(new String(bytes, 0, length, StandardCharsets.UTF_8).split("\\r?\\n"));
+    Files.write(startupClassList, lines, StandardCharsets.UTF_8);
+    for (String line : lines) {
+      if (!line.isEmpty() && !line.startsWith("#") && !line.startsWith("@"))
+        RECORDED.add(PreloadManifest.Type.CLASS, line.split(" ")[0].replace('/', '.'));
+    }
+    if (args.stream().noneMatch(a -> a.startsWith(ARCHIVE_AT_EXIT_OPTION)))
+      dumpArchive(startupClassList, dir.resolve(archiveName + ".jsa"));
+  }
+
+  /**
+   * Runs a JVM that generates a class data sharing archive and waits for it.
+   */
+  private static void dumpArchive(Path classList, Path archive) throws IOException, InterruptedException {
+    String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+    ProcessBuilder builder = new ProcessBuilder(java, "-Xshare:dump", "-XX:SharedClassListFile=" + classList,
+        "-XX:SharedArchiveFile=" + archive, "-cp", System.getProperty("java.class.path"));
+    builder.redirectErrorStream(true);
+    File log = new File(archive + ".log");
+    builder.redirectOutput(log);
+    int status = builder.start().waitFor();
+    if (status == 0)
+      LOGGER.info("Generated class data sharing archive {}; start the JVM with -XX:SharedArchiveFile={} to use it", archive, archive);
+    else
+      LOGGER.warn("Could not generate class data sharing archive {} (exit status {}), see {}", archive, status, log);
+  }
+
+  /**
+   * Returns the directory where files are written, i.e. the jar's directory.
+   * 
+   * @return the directory or an empty optional if it cannot be found
+   */
+  private static Optional<Path> getDirectory() throws UnsupportedEncodingException {
+    // JarUtil.getJarDir() looks this resource up without checking it exists
+    if (ClassLoader.getSystemClassLoader().getResource(".") == null)
+      return Optional.empty();
+    return Optional.of(Paths.get(URLDecoder.decode(JarUtil.getJarDir(), "UTF-8")));
+  }
+
+  private StartupTraining() {}
+}
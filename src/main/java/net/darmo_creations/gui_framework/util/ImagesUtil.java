@@ -18,27 +18,44 @@
  */
 package net.darmo_creations.gui_framework.util;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import javax.swing.ImageIcon;
 
+import net.darmo_creations.gui_framework.startup.PreloadManifest;
+import net.darmo_creations.gui_framework.startup.StartupTraining;
+
 /**
  * This class holds all images for the app and provides a method to copy images.
  * 
  * @author Damien Vergnet
  */
 public final class ImagesUtil {
+  /** Decoded icons, shared by all windows */
+  private static final Map<String, ImageIcon> CACHE = new ConcurrentHashMap<>();
+
   public static final ImageIcon HELP = getIcon("/assets/icons/help.png");
   public static final ImageIcon UPDATE_CHECK_FAILED = getIcon("/assets/icons/updates_check_failed.png");
   public static final ImageIcon CHECKING_UPDATES = getIcon("/assets/icons/checking_updates.gif");
   public static final ImageIcon NEW_UPDATE = getIcon("/assets/icons/update_available.png");
 
   /**
-   * Loads the icon at the given path.
+   * Loads the icon at the given path. Icons are cached, all calls with the same path return the same
+   * instance; returned icons should thus not be modified.
    * 
    * @param path the path
    * @return the icon
    */
   public static ImageIcon getIcon(String path) {
-    return new ImageIcon(ImagesUtil.class.getResource(path));
+    StartupTraining.record(PreloadManifest.Type.ICON, path);
+    ImageIcon icon = CACHE.get(path);
+    if (icon != null)
+      return icon;
+    // Decoded outside of the map so that other paths are not blocked meanwhile
+    icon = new ImageIcon(ImagesUtil.class.getResource(path));
+    ImageIcon previous = CACHE.putIfAbsent(path, icon);
+    return previous != null ? previous : icon;
   }
 
   private ImagesUtil() {}
@@ -49,8 +49,8 @@ import org.xml.sax.SAXException;
 
 import net.darmo_creations.gui_framework.Application;
 import net.darmo_creations.gui_framework.ApplicationRegistry;
+import net.darmo_creations.gui_framework.events.EventsBus;
 import net.darmo_creations.gui_framework.events.UpdateEvent;
-import net.darmo_creations.utils.events.EventsBus;
 import net.darmo_creations.utils.version.Version;
 
 /**
@@ -64,6 +64,11 @@ public final class UpdatesChecker {
   private Version version;
   private String link, changelog;
   private boolean updateAvailable;
+  /** The thread of the current check; null if there is none or it has been cancelled */
+  private volatile Thread thread;
+  /** The event fired at the end of the last check */
+  private volatile UpdateEvent lastResult;
+  private volatile boolean checkRequested;
 
   public UpdatesChecker() {
     reset();
@@ -97,10 +102,35 @@ public final class UpdatesChecker {
     return this.updateAvailable;
   }
 
+  /**
+   * @return true if a check is in progress
+   */
+  public boolean isChecking() {
+    return this.thread != null;
+  }
+
+  /**
+   * @return true if {@link #checkUpdate()} has been called at least once
+   */
+  public boolean isCheckRequested() {
+    return this.checkRequested;
+  }
+
+  /**
+   * Returns the event fired at the end of the last completed check: {@link UpdateEvent.NewUpdate},
+   * {@link UpdateEvent.NoUpdate} or {@link UpdateEvent.CheckFailed}.
+   * 
+   * @return the event or an empty optional if no check has completed yet
+   */
+  public Optional<UpdateEvent> getLastResult() {
+    return Optional.ofNullable(this.lastResult);
+  }
+
   /**
    * Checks if an update is available.
    */
   public synchronized void checkUpdate() {
+    this.checkRequested = true;
     Application application = ApplicationRegistry.getApplication();
     EventsBus bus = ApplicationRegistry.EVENTS_BUS;
 
@@ -183,18 +213,41 @@ public final class UpdatesChecker {
         errorMsg = ex.getLocalizedMessage();
       }
 
+      if (this.thread != Thread.currentThread()) {
+        return;
+      }
+      this.thread = null;
+
+      UpdateEvent result = null;
       if (error) {
         reset();
-        bus.dispatchEvent(new UpdateEvent.CheckFailed(errorMsg));
+        result = new UpdateEvent.CheckFailed(errorMsg);
       }
       else if (noUpdate) {
-        bus.dispatchEvent(new UpdateEvent.NoUpdate());
+        result = new UpdateEvent.NoUpdate();
       }
       else if (this.updateAvailable) {
-        bus.dispatchEvent(new UpdateEvent.NewUpdate(getVersion(), getLink(), getChangelog()));
+        result = new UpdateEvent.NewUpdate(getVersion(), getLink(), getChangelog());
+      }
+      if (result != null) {
+        this.lastResult = result;
+        bus.dispatchEvent(result);
       }
     };
-    new Thread(r).start();
+    Thread thread = new Thread(r, "updates-checker");
+    thread.setDaemon(true);
+    this.thread = thread;
+    thread.start();
+  }
+
+  /**
+   * Cancels the current check if any. No events will be fired for it.
+   */
+  public synchronized void cancel() {
+    Thread thread = this.thread;
+    this.thread = null;
+    if (thread != null)
+      thread.interrupt();
   }
 
   /**
@@ -0,0 +1,260 @@
+/*
+ * Copyright © 2017 Damien Vergnet
+ * 
+ * This file is part of GUI-Framework.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.darmo_creations.gui_framework.events.processor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * This annotation processor generates an
+ * {@link net.darmo_creations.gui_framework.events.EventDispatcher} for each listener class declaring
+ * methods annotated with {@link net.darmo_creations.gui_framework.events.SubscribeEvent} (or
+ * {@link net.darmo_creations.utils.events.SubscribeEvent}) and lists them in
+ * {@code META-INF/services} so that the events bus finds them. It is shipped in the framework's
+ * separate {@code processor} jar; projects opt in by putting that jar on javac's annotation
+ * processor path. The framework's own listeners are processed when it is built.
+ * <p>
+ * Dispatchers are only generated for public, concrete, top level or static member classes (their
+ * enclosing classes being public too); other listeners use reflection when registered. Invalid
+ * subscriber methods of these classes are reported as warnings and no dispatcher is generated for
+ * their class; the bus reports them if the listener is ever registered.
+ * </p>
+ *
+ * @author Damien Vergnet
+ */
+public class SubscribeEventProcessor extends AbstractProcessor {
+  /** Suffix appended to the listener's binary simple name to name its dispatcher */
+  public static final String DISPATCHER_SUFFIX = "$$EventDispatcher";
+
+  private static final String SUBSCRIBE_EVENT = "net.darmo_creations.gui_framework.events.SubscribeEvent";
+  private static final String UTILS_SUBSCRIBE_EVENT = "net.darmo_creations.utils.events.SubscribeEvent";
+  private static final String ABSTRACT_EVENT = "net.darmo_creations.utils.events.AbstractEvent";
+  private static final String DISPATCHER = "net.darmo_creations.gui_framework.events.EventDispatcher";
+  private static final String DELIVERY_MODE = "net.darmo_creations.gui_framework.events.DeliveryMode";
+  private static final String SERVICE_FILE = "META-INF/services/" + DISPATCHER;
+
+  /** Dispatchers generated during this compilation */
+  private final Set<String> generated = new TreeSet<>();
+  private final Set<String> processed = new HashSet<>();
+
+  @Override
+  public Set<String> getSupportedAnnotationTypes() {
+    return new HashSet<>(Arrays.asList(SUBSCRIBE_EVENT, UTILS_SUBSCRIBE_EVENT));
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    Map<TypeElement, Boolean> listeners = new LinkedHashMap<>();
+    for (TypeElement annotation : annotations) {
+      for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+        TypeElement listener = (TypeElement) element.getEnclosingElement();
+        if (element.getKind() == ElementKind.METHOD && isEligible(listener))
+          listeners.merge(listener, checkMethod((ExecutableElement) element), Boolean::logicalAnd);
+      }
+    }
+    listeners.forEach((listener, valid) -> {
+      if (valid && this.processed.add(listener.getQualifiedName().toString()))
+        generateDispatcher(listener);
+    });
+    if (roundEnv.processingOver() && !this.generated.isEmpty())
+      writeServiceFile();
+    return false;
+  }
+
+  /**
+   * Checks that an annotated method has the same signature as required by the bus.
+   */
+  private boolean checkMethod(ExecutableElement method) {
+    List<? extends VariableElement> params = method.getParameters();
+    TypeMirror abstractEvent = this.processingEnv.getElementUtils().getTypeElement(ABSTRACT_EVENT).asType();
+    if (params.size() != 1 || !this.processingEnv.getTypeUtils().isAssignable(params.get(0).asType(), abstractEvent)
+        || method.getModifiers().contains(Modifier.STATIC)) {
+      warning(method, "annotated method '%s' argument does not extend AbstractEvent or has more than 1 argument.", method.getSimpleName());
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Tells if generated code can reference the listener class and create dispatchers only for its
+   * exact instances.
+   */
+  private boolean isEligible(TypeElement type) {
+    if (type.getKind() != ElementKind.CLASS || type.getModifiers().contains(Modifier.ABSTRACT))
+      return false;
+    for (Element e = type; e.getKind() != ElementKind.PACKAGE; e = e.getEnclosingElement()) {
+      if (!e.getModifiers().contains(Modifier.PUBLIC))
+        return false;
+      if (e instanceof TypeElement && ((TypeElement) e).getNestingKind() != NestingKind.TOP_LEVEL
+          && (((TypeElement) e).getNestingKind() != NestingKind.MEMBER || !e.getModifiers().contains(Modifier.STATIC)))
+        return false;
+    }
+    return true;
+  }
+
+  private void generateDispatcher(TypeElement listener) {
+    String packageName = this.processingEnv.getElementUtils().getPackageOf(listener).getQualifiedName().toString();
+    String binaryName = this.processingEnv.getElementUtils().getBinaryName(listener).toString();
+    String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + DISPATCHER_SUFFIX;
+    String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+    String listenerName = listener.getQualifiedName().toString();
+
+    List<String> handlers = new ArrayList<>();
+    // Includes inherited methods, overridden ones are only returned once like Class.getMethods()
+    for (ExecutableElement method : ElementFilter.methodsIn(this.processingEnv.getElementUtils().getAllMembers(listener))) {
+      Map<String, Object> values = getAnnotationValues(method);
+      if (values == null || !method.getModifiers().contains(Modifier.PUBLIC) || method.getModifiers().contains(Modifier.STATIC)
+          || method.getParameters().size() != 1)
+        continue;
+      String eventType = this.processingEnv.getTypeUtils().erasure(method.getParameters().get(0).asType()).toString();
+      // The invoker already receives an AbstractEvent
+      String event = eventType.equals(ABSTRACT_EVENT) ? "e" : "(" + eventType + ") e";
+      handlers.add(String.format("new EventDispatcher.Handler(\"%s\", %s.class, %s.%s, %s, %s,%n            (l, e) -> ((%s) l).%s(%s))",
+          method.getSimpleName(), eventType, DELIVERY_MODE, values.get("mode"), values.get("priority"), values.get("receiveCancelled"),
+          listenerName, method.getSimpleName(), event));
+    }
+
+    try (PrintWriter out = new PrintWriter(this.processingEnv.getFiler().createSourceFile(qualifiedName, listener).openWriter())) {
+      if (!packageName.isEmpty())
+        out.printf("package %s;%n%n", packageName);
+      out.printf("import java.util.Arrays;%n");
+      out.printf("import java.util.List;%n%n");
+      out.printf("import %s;%n%n", DISPATCHER);
+      out.printf("/**%n * Event dispatcher of {@link %s}, generated by %s.%n */%n", listenerName, getClass().getName());
+      // Subscribers may be deprecated, they are still called
+      out.printf("@SuppressWarnings({\"rawtypes\", \"deprecation\"})%n");
+      out.printf("public final class %s implements EventDispatcher {%n", simpleName);
+      out.printf("  @Override%n  public Class<?> getListenerClass() {%n    return %s.class;%n  }%n%n", listenerName);
+      out.printf("  @Override%n  public List<EventDispatcher.Handler> getHandlers() {%n");
+      out.printf("    return Arrays.asList(%n        %s);%n  }%n}%n", String.join(",\n        ", handlers));
+      this.generated.add(qualifiedName);
+    }
+    catch (IOException ex) {
+      error(listener, "could not generate the event dispatcher: %s", ex.getMessage());
+    }
+  }
+
+  /**
+   * Returns the values of the subscriber annotation of a method, defaults included.
+   *
+   * @return the values or null if the method is not annotated
+   */
+  private Map<String, Object> getAnnotationValues(ExecutableElement method) {
+    for (AnnotationMirror annotation : method.getAnnotationMirrors()) {
+      String name = ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString();
+      Map<String, Object> values = new LinkedHashMap<>();
+      if (name.equals(SUBSCRIBE_EVENT)) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : this.processingEnv.getElementUtils()
+            .getElementValuesWithDefaults(annotation).entrySet()) {
+          Object value = entry.getValue().getValue();
+          // Enum constants are returned as elements
+          if (value instanceof VariableElement)
+            value = ((VariableElement) value).getSimpleName();
+          values.put(entry.getKey().getSimpleName().toString(), value);
+        }
+        return values;
+      }
+      if (name.equals(UTILS_SUBSCRIBE_EVENT)) {
+        values.put("mode", "POSTING");
+        values.put("priority", 0);
+        values.put("receiveCancelled", true);
+        return values;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Lists the generated dispatchers in the service file, keeping the entries of previous
+   * compilations for incremental builds.
+   */
+  private void writeServiceFile() {
+    Filer filer = this.processingEnv.getFiler();
+    Set<String> entries = new TreeSet<>(this.generated);
+    try {
+      FileObject existing = filer.getResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+      try (BufferedReader in = new BufferedReader(new InputStreamReader(existing.openInputStream(), StandardCharsets.UTF_8))) {
+        String line;
+        while ((line = in.readLine()) != null) {
+          if (!line.trim().isEmpty())
+            entries.add(line.trim());
+        }
+      }
+    }
+    catch (IOException __) {
+      // No previous file
+    }
+
+    try {
+      FileObject file = filer.createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+      try (Writer out = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8)) {
+        for (String entry : entries)
+          out.write(entry + "\n");
+      }
+    }
+    catch (IOException ex) {
+      this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "could not write " + SERVICE_FILE + ": " + ex.getMessage());
+    }
+  }
+
+  private void warning(Element element, String format, Object... args) {
+    this.processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, String.format(format, args), element);
+  }
+
+  private void error(Element element, String format, Object... args) {
+    this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, String.format(format, args), element);
+  }
+}
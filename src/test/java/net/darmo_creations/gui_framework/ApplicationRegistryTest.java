@@ -0,0 +1,103 @@
+package net.darmo_creations.gui_framework;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class ApplicationRegistryTest {
+  @Test
+  public void testLazySingleton() {
+    AtomicInteger created = new AtomicInteger();
+    ApplicationRegistry.registerService(ServiceA.class, () -> {
+      created.incrementAndGet();
+      return new ServiceA();
+    });
+    assertEquals(0, created.get());
+    assertFalse(ApplicationRegistry.getServicesInitTimes().containsKey(ServiceA.class));
+
+    ServiceA a = ApplicationRegistry.getService(ServiceA.class);
+    assertSame(a, ApplicationRegistry.getService(ServiceA.class));
+    assertEquals(1, created.get());
+    assertTrue(ApplicationRegistry.getServicesInitTimes().containsKey(ServiceA.class));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testReplaceCreatedService() {
+    ApplicationRegistry.registerService(ServiceB.class, ServiceB::new);
+    ApplicationRegistry.getService(ServiceB.class);
+    ApplicationRegistry.registerService(ServiceB.class, ServiceB::new);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownService() {
+    ApplicationRegistry.getService(ServiceC.class);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testCircularDependency() {
+    ApplicationRegistry.registerService(ServiceD.class, () -> {
+      ApplicationRegistry.getService(ServiceD.class);
+      return new ServiceD();
+    });
+    ApplicationRegistry.getService(ServiceD.class);
+  }
+
+  @Test
+  public void testCrossThreadCircularDependency() throws InterruptedException {
+    CountDownLatch started = new CountDownLatch(2);
+    ApplicationRegistry.registerService(ServiceE.class, () -> {
+      awaitQuietly(started);
+      ApplicationRegistry.getService(ServiceF.class);
+      return new ServiceE();
+    });
+    ApplicationRegistry.registerService(ServiceF.class, () -> {
+      awaitQuietly(started);
+      ApplicationRegistry.getService(ServiceE.class);
+      return new ServiceF();
+    });
+    AtomicInteger failures = new AtomicInteger();
+    Thread t1 = new Thread(() -> getService(ServiceE.class, failures));
+    Thread t2 = new Thread(() -> getService(ServiceF.class, failures));
+    t1.start();
+    t2.start();
+    t1.join(5000);
+    t2.join(5000);
+    assertFalse(t1.isAlive() || t2.isAlive());
+    assertTrue(failures.get() > 0);
+  }
+
+  private static void getService(Class<?> type, AtomicInteger failures) {
+    try {
+      ApplicationRegistry.getService(type);
+    }
+    catch (IllegalStateException __) {
+      failures.incrementAndGet();
+    }
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    latch.countDown();
+    try {
+      latch.await(1, TimeUnit.SECONDS);
+    }
+    catch (InterruptedException ex) {
+      throw new RuntimeException(ex);
+    }
+  }
+
+  private static class ServiceA {}
+
+  private static class ServiceB {}
+
+  private static class ServiceC {}
+
+  private static class ServiceD {}
+
+  private static class ServiceE {}
+
+  private static class ServiceF {}
+}
@@ -73,6 +73,11 @@ public class TestApplication extends Application {
     return "/assets/about.html";
   }
 
+  @Override
+  protected boolean hasSplashScreen() {
+    return true;
+  }
+
   @Override
   public Optional<String> getIcon() {
     return Optional.of("/assets/icons/jenealogio_icon.png");
@@ -0,0 +1,52 @@
+package net.darmo_creations.gui_framework.config;
+
+import static org.junit.Assert.*;
+
+import java.util.Optional;
+
+import org.junit.Test;
+
+import net.darmo_creations.gui_framework.config.tags.AbstractTag;
+import net.darmo_creations.gui_framework.config.tags.BooleanTag;
+import net.darmo_creations.gui_framework.config.tags.IntegerTag;
+
+public class WritableConfigTest {
+  @Test
+  public void testGetTagFromName() {
+    BooleanTag booleanTag = new BooleanTag("test_tag");
+    IntegerTag integerTag = new IntegerTag("test_tag");
+    WritableConfig.registerTag(booleanTag, true);
+    WritableConfig.registerTag(integerTag, 1);
+
+    Optional<AbstractTag<?>> tag = WritableConfig.getTagFromName("test_tag", Integer.class.getName());
+    assertSame(integerTag, tag.get());
+    assertSame(booleanTag, WritableConfig.getTagFromName("test_tag", Boolean.class.getName()).get());
+    assertFalse(WritableConfig.getTagFromName("test_tag", String.class.getName()).isPresent());
+    assertFalse(WritableConfig.getTagFromName("unknown", Integer.class.getName()).isPresent());
+  }
+
+  @Test
+  public void testRegisteredTagsView() {
+    BooleanTag tag = new BooleanTag("view_tag");
+    WritableConfig.registerTag(tag, false);
+    assertSame(WritableConfig.getRegisteredTags(), WritableConfig.getRegisteredTags());
+    assertTrue(WritableConfig.getRegisteredTags().contains(tag));
+  }
+
+  @Test
+  public void testRegisterWhileIterating() {
+    WritableConfig.registerTag(new BooleanTag("iterated_tag"), false);
+    int i = 0;
+    for (AbstractTag<?> __ : WritableConfig.getRegisteredTags()) {
+      // Tags added during the iteration may be returned by it
+      if (i < 10)
+        WritableConfig.registerTag(new BooleanTag("added_tag_" + i++), false);
+    }
+    assertTrue(WritableConfig.getTagFromName("added_tag_0", Boolean.class.getName()).isPresent());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testRegisteredTagsUnmodifiable() {
+    WritableConfig.getRegisteredTags().clear();
+  }
+}
@@ -0,0 +1,142 @@
+package net.darmo_creations.gui_framework.events;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Test;
+
+public class EventChannelTest {
+  @Test
+  public void testBackgroundConsumer() throws InterruptedException {
+    int producers = 2, count = 10_000;
+    CountDownLatch done = new CountDownLatch(producers * count);
+    long[] last = {-1, -1};
+    AtomicBoolean ordered = new AtomicBoolean(true);
+    EventChannel<Slot> channel = new EventChannel<>("test", 64, Slot::new, (slot, sequence, endOfBatch) -> {
+      // Values of each producer are received in order
+      if (slot.value <= last[slot.producer])
+        ordered.set(false);
+      last[slot.producer] = slot.value;
+      done.countDown();
+    }, DeliveryMode.BACKGROUND);
+
+    for (int p = 0; p < producers; p++) {
+      int producer = p;
+      new Thread(() -> {
+        for (int i = 0; i < count; i++) {
+          long sequence = channel.next();
+          Slot slot = channel.get(sequence);
+          slot.producer = producer;
+          slot.value = i;
+          channel.publish(sequence);
+        }
+      }).start();
+    }
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    assertTrue(ordered.get());
+    channel.close();
+  }
+
+  @Test
+  public void testBackpressure() throws InterruptedException {
+    CountDownLatch blocked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    EventChannel<Slot> channel = new EventChannel<>("test", 4, Slot::new, (slot, sequence, endOfBatch) -> {
+      blocked.countDown();
+      try {
+        release.await();
+      }
+      catch (InterruptedException __) {}
+    }, DeliveryMode.BACKGROUND);
+
+    assertTrue(channel.tryPublish((slot, v) -> slot.value = v, 0L));
+    assertTrue(blocked.await(5, TimeUnit.SECONDS));
+    // The first slot is not freed until the handler returns
+    for (long i = 1; i < 4; i++)
+      assertTrue(channel.tryPublish((slot, v) -> slot.value = v, i));
+    assertEquals(0, channel.getRemainingCapacity());
+    assertFalse(channel.tryPublish((slot, v) -> slot.value = v, 4L));
+    release.countDown();
+    channel.publish((slot, v) -> slot.value = v, 4L);
+    channel.close();
+  }
+
+  @Test
+  public void testEdtConsumer() throws Exception {
+    AtomicLong sum = new AtomicLong();
+    AtomicBoolean onEdt = new AtomicBoolean(true);
+    EventChannel<Slot> channel = new EventChannel<>("test", 16, Slot::new, (slot, sequence, endOfBatch) -> {
+      onEdt.compareAndSet(true, SwingUtilities.isEventDispatchThread());
+      sum.addAndGet(slot.value);
+    }, DeliveryMode.EDT);
+
+    for (long i = 1; i <= 100; i++)
+      channel.publish((slot, v) -> slot.value = v, i);
+    SwingUtilities.invokeAndWait(() -> {});
+    assertEquals(5050, sum.get());
+    assertTrue(onEdt.get());
+  }
+
+  @Test
+  public void testFailedWriterSkipsSlot() throws Exception {
+    List<Long> values = Collections.synchronizedList(new ArrayList<>());
+    List<Boolean> endOfBatches = Collections.synchronizedList(new ArrayList<>());
+    EventChannel<Slot> channel = new EventChannel<>("test", 16, Slot::new, (slot, sequence, endOfBatch) -> {
+      values.add(slot.value);
+      endOfBatches.add(endOfBatch);
+    }, DeliveryMode.EDT);
+
+    SwingUtilities.invokeAndWait(() -> {
+      channel.publish((slot, v) -> slot.value = v, 1L);
+      try {
+        channel.publish((slot, v) -> {
+          slot.value = v;
+          throw new IllegalStateException();
+        }, 2L);
+        fail();
+      }
+      catch (IllegalStateException __) {}
+    });
+    SwingUtilities.invokeAndWait(() -> {});
+    assertEquals(Arrays.asList(1L), values);
+    // The last handled event ends the batch even though the skipped one follows it
+    assertEquals(Arrays.asList(true), endOfBatches);
+    channel.publish((slot, v) -> slot.value = v, 3L);
+    SwingUtilities.invokeAndWait(() -> {});
+    assertEquals(Arrays.asList(1L, 3L), values);
+  }
+
+  @Test
+  public void testCloseSkipsUnpublishedSlot() throws InterruptedException {
+    CountDownLatch handled = new CountDownLatch(1);
+    EventChannel<Slot> channel = new EventChannel<>("test", 4, Slot::new, (slot, sequence, endOfBatch) -> {
+      if (slot.value == 2)
+        handled.countDown();
+    }, DeliveryMode.BACKGROUND);
+
+    channel.next(); // Never published
+    channel.publish((slot, v) -> slot.value = v, 2L);
+    channel.close();
+    assertTrue(handled.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCapacityNotPowerOfTwo() {
+    new EventChannel<>("test", 10, Slot::new, (slot, sequence, endOfBatch) -> {}, DeliveryMode.EDT);
+  }
+
+  private static class Slot {
+    int producer;
+    long value;
+  }
+}
@@ -0,0 +1,323 @@
+package net.darmo_creations.gui_framework.events;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import net.darmo_creations.utils.events.AbstractEvent;
+
+public class EventsBusTest {
+  private EventsBus bus;
+
+  @Before
+  public void setUp() {
+    this.bus = new EventsBus();
+  }
+
+  @Test
+  public void testDispatchToPublicListener() {
+    PublicListener listener = new PublicListener();
+    this.bus.register(listener);
+    this.bus.dispatchEvent(new UserEvent(UserEvent.DefaultType.HELP));
+    this.bus.dispatchEvent(new UpdateEvent.NoUpdate());
+    assertEquals(1, listener.userEvents.size());
+    assertEquals(2, listener.allEvents.size());
+  }
+
+  @Test
+  public void testDispatchToPrivateListener() {
+    List<AbstractEvent> events = new ArrayList<>();
+    this.bus.register(new Object() {
+      @SubscribeEvent
+      public void onEvent(UpdateEvent e) {
+        events.add(e);
+      }
+    });
+    this.bus.dispatchEvent(new UpdateEvent.NoUpdate());
+    this.bus.dispatchEvent(new UserEvent(UserEvent.DefaultType.HELP));
+    assertEquals(1, events.size());
+  }
+
+  @Test
+  public void testGeneratedDispatcher() {
+    // Generated by the annotation processor when compiling the tests
+    EventDispatcher dispatcher = EventDispatchers.get(PublicListener.class).get();
+    assertEquals(2, dispatcher.getHandlers().size());
+    assertFalse(EventDispatchers.get(Object.class).isPresent());
+  }
+
+  @Test
+  public void testRegisterTwice() {
+    PublicListener listener = new PublicListener();
+    this.bus.register(listener);
+    this.bus.register(listener);
+    this.bus.dispatchEvent(new UserEvent(UserEvent.DefaultType.HELP));
+    assertEquals(1, listener.userEvents.size());
+  }
+
+  @Test
+  public void testRegisterAfterDispatch() {
+    PublicListener first = new PublicListener();
+    PublicListener second = new PublicListener();
+    this.bus.register(first);
+    this.bus.dispatchEvent(new UpdateEvent.NoUpdate());
+    this.bus.register(second);
+    this.bus.dispatchEvent(new UpdateEvent.NoUpdate());
+    assertEquals(2, first.allEvents.size());
+    assertEquals(1, second.allEvents.size());
+    assertEquals(0, second.userEvents.size());
+  }
+
+  @Test
+  public void testEdtDelivery() throws InterruptedException {
+    CountDownLatch latch = new CountDownLatch(2);
+    AtomicBoolean onEdt = new AtomicBoolean(true);
+    this.bus.register(new Object() {
+      @SubscribeEvent(mode = DeliveryMode.EDT)
+      public void onEvent(UpdateEvent e) {
+        onEdt.compareAndSet(true, SwingUtilities.isEventDispatchThread());
+        latch.countDown();
+      }
+    });
+    this.bus.dispatchEvent(new UpdateEvent.NoUpdate());
+    this.bus.dispatchEvent(new UpdateEvent.NoUpdate());
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    assertTrue(onEdt.get());
+  }
+
+  @Test
+  public void testBackgroundDelivery() throws InterruptedException {
+    CountDownLatch latch = new CountDownLatch(1);
+    Thread poster = Thread.currentThread();
+    AtomicBoolean otherThread = new AtomicBoolean();
+    this.bus.register(new Object() {
+      @SubscribeEvent(mode = DeliveryMode.BACKGROUND)
+      public void onEvent(UpdateEvent e) {
+        otherThread.set(Thread.currentThread() != poster);
+        latch.countDown();
+      }
+    });
+    this.bus.dispatchEvent(new UpdateEvent.NoUpdate());
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    assertTrue(otherThread.get());
+  }
+
+  @Test
+  public void testCoalescing() throws Exception {
+    PublicListener listener = new PublicListener();
+    this.bus.register(listener);
+    this.bus.setCoalescingPolicy(UserEvent.class,
+        CoalescingPolicy.<UserEvent> latest().withKey(e -> e.getType() == UserEvent.DefaultType.HELP ? null : e.getType()));
+
+    // Dispatching from the EDT ensures the pending event cannot be flushed in the meantime
+    UserEvent last = new UserEvent(UserEvent.DefaultType.ABOUT);
+    SwingUtilities.invokeAndWait(() -> {
+      this.bus.dispatchEvent(new UserEvent(UserEvent.DefaultType.ABOUT));
+      this.bus.dispatchEvent(last);
+      this.bus.dispatchEvent(new UserEvent(UserEvent.DefaultType.HELP));
+      assertEquals(1, listener.userEvents.size());
+    });
+
+    SwingUtilities.invokeAndWait(() -> {});
+    assertEquals(2, listener.userEvents.size());
+    assertSame(last, listener.userEvents.get(1));
+  }
+
+  @Test
+  public void testMetrics() {
+    this.bus.register(new PublicListener());
+    this.bus.dispatchEvent(new UserEvent(UserEvent.DefaultType.HELP));
+    this.bus.dispatchEvent(new UserEvent(UserEvent.DefaultType.HELP));
+
+    SubscriberMetrics metrics = this.bus.getMetrics().stream().filter(m -> m.getEventType() == UserEvent.class).findFirst().get();
+    assertEquals(PublicListener.class.getName() + "#onUserEvent", metrics.getSubscriberName());
+    assertEquals(2, metrics.getCount());
+    assertEquals(2, Arrays.stream(metrics.getHistogram()).sum());
+    assertTrue(metrics.getMaxNanos() <= metrics.getTotalNanos());
+
+    this.bus.resetMetrics();
+    assertEquals(0, metrics.getCount());
+  }
+
+  @Test
+  public void testUnregister() {
+    PublicListener listener = new PublicListener();
+    this.bus.register(listener);
+    this.bus.dispatchEvent(new UserEvent(UserEvent.DefaultType.HELP));
+    assertTrue(this.bus.unregister(listener));
+    assertFalse(this.bus.unregister(listener));
+    this.bus.dispatchEvent(new UserEvent(UserEvent.DefaultType.HELP));
+    assertEquals(1, listener.userEvents.size());
+    assertTrue(this.bus.getMetrics().isEmpty());
+  }
+
+  @Test
+  public void testWeakListenerPurged() throws InterruptedException {
+    PublicListener listener = new PublicListener();
+    this.bus.registerWeak(listener);
+    this.bus.dispatchEvent(new UserEvent(UserEvent.DefaultType.HELP));
+    assertEquals(1, listener.userEvents.size());
+
+    listener = null;
+    for (int i = 0; i < 20 && !this.bus.getMetrics().isEmpty(); i++) {
+      System.gc();
+      Thread.sleep(50);
+      this.bus.dispatchEvent(new UserEvent(UserEvent.DefaultType.HELP));
+    }
+    assertTrue(this.bus.getMetrics().isEmpty());
+  }
+
+  @Test
+  public void testPrioritiesAndCancellation() {
+    List<String> calls = new ArrayList<>();
+    this.bus.register(new Object() {
+      @SubscribeEvent
+      public void onEvent(UserEvent e) {
+        calls.add("normal");
+      }
+
+      @SubscribeEvent(receiveCancelled = true, priority = -1)
+      public void onCancelled(UserEvent e) {
+        calls.add("cancelled");
+      }
+    });
+    this.bus.register(new Object() {
+      @SubscribeEvent(priority = 10)
+      public void onEvent(UserEvent e) {
+        calls.add("veto");
+        if (e.getType() == UserEvent.DefaultType.EXITING)
+          e.setCancelled();
+      }
+    });
+
+    this.bus.dispatchEvent(new UserEvent(UserEvent.DefaultType.HELP));
+    assertEquals(Arrays.asList("veto", "normal", "cancelled"), calls);
+    calls.clear();
+    this.bus.dispatchEvent(new UserEvent(UserEvent.DefaultType.EXITING));
+    assertEquals(Arrays.asList("veto", "cancelled"), calls);
+  }
+
+  @Test
+  public void testScopes() {
+    EventsBus child = this.bus.createChild();
+    EventsBus sibling = this.bus.createChild();
+    PublicListener root = new PublicListener(), childListener = new PublicListener(), siblingListener = new PublicListener();
+    this.bus.register(root);
+    child.register(childListener);
+    sibling.register(siblingListener);
+
+    // Dispatched on the root: delivered to the whole tree
+    this.bus.dispatchEvent(new UpdateEvent.NoUpdate());
+    assertEquals(1, root.allEvents.size());
+    assertEquals(1, childListener.allEvents.size());
+    assertEquals(1, siblingListener.allEvents.size());
+
+    // Local event: stays in the child
+    child.dispatchEvent(new UpdateEvent.NoUpdate());
+    assertEquals(1, root.allEvents.size());
+    assertEquals(2, childListener.allEvents.size());
+
+    // Global event: propagates to the root but not to the sibling
+    child.dispatchEvent(new TestGlobalEvent());
+    assertEquals(2, root.allEvents.size());
+    assertEquals(3, childListener.allEvents.size());
+    assertEquals(1, siblingListener.allEvents.size());
+
+    child.close();
+    assertTrue(child.isClosed());
+    assertTrue(child.getMetrics().isEmpty());
+    this.bus.dispatchEvent(new UpdateEvent.NoUpdate());
+    assertEquals(3, childListener.allEvents.size());
+  }
+
+  @Test
+  public void testUserEventsReachRoot() {
+    EventsBus child = this.bus.createChild();
+    EventsBus sibling = this.bus.createChild();
+    PublicListener root = new PublicListener(), siblingListener = new PublicListener();
+    this.bus.register(root);
+    sibling.register(siblingListener);
+
+    child.dispatchEvent(new UserEvent(UserEvent.DefaultType.EXITING));
+    assertEquals(1, root.allEvents.size());
+    assertTrue(siblingListener.allEvents.isEmpty());
+  }
+
+  @Test
+  public void testConcurrentRegistration() throws InterruptedException {
+    PublicListener permanent = new PublicListener();
+    this.bus.register(permanent);
+    AtomicBoolean failed = new AtomicBoolean();
+    Thread registerer = new Thread(() -> {
+      try {
+        for (int i = 0; i < 1000; i++) {
+          PublicListener listener = new PublicListener();
+          this.bus.register(listener);
+          this.bus.unregister(listener);
+        }
+      }
+      catch (RuntimeException e) {
+        failed.set(true);
+      }
+    });
+    registerer.start();
+    for (int i = 0; i < 1000; i++)
+      this.bus.dispatchEvent(new UpdateEvent.NoUpdate());
+    registerer.join();
+
+    assertFalse(failed.get());
+    assertEquals(1000, permanent.allEvents.size());
+    assertEquals(2, this.bus.getMetrics().size());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testExceptionNotWrapped() {
+    this.bus.register(new Object() {
+      @SubscribeEvent
+      public void onEvent(UserEvent e) {
+        throw new IllegalStateException();
+      }
+    });
+    this.bus.dispatchEvent(new UserEvent(UserEvent.DefaultType.HELP));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidSubscriber() {
+    this.bus.register(new Object() {
+      @SubscribeEvent
+      public void onEvent(String s) {}
+    });
+  }
+
+  private static class TestGlobalEvent extends AbstractEvent implements GlobalEvent {
+    TestGlobalEvent() {
+      super(false);
+    }
+  }
+
+  public static class PublicListener {
+    final List<UserEvent> userEvents = new ArrayList<>();
+    final List<AbstractEvent> allEvents = new ArrayList<>();
+
+    // Darmo-Utils' annotation is still supported
+    @net.darmo_creations.utils.events.SubscribeEvent
+    public void onUserEvent(UserEvent e) {
+      this.userEvents.add(e);
+    }
+
+    @SubscribeEvent
+    public void onEvent(AbstractEvent e) {
+      this.allEvents.add(e);
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package net.darmo_creations.gui_framework.events;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class UserEventRouterTest {
+  private EventsBus bus;
+  private UserEventRouter router;
+
+  @Before
+  public void setUp() {
+    this.bus = new EventsBus();
+    this.router = new UserEventRouter();
+    this.bus.register(this.router);
+  }
+
+  @Test
+  public void testRouting() {
+    List<String> calls = new ArrayList<>();
+    this.router.addHandler(UserEvent.DefaultType.HELP, e -> calls.add("help"));
+    this.router.addHandler(CustomType.OPEN, e -> calls.add("open"));
+    this.bus.dispatchEvent(new UserEvent(CustomType.OPEN));
+    this.bus.dispatchEvent(new UserEvent(UserEvent.DefaultType.ABOUT));
+    this.bus.dispatchEvent(new UserEvent(UserEvent.DefaultType.HELP));
+    assertEquals(Arrays.asList("open", "help"), calls);
+  }
+
+  @Test
+  public void testCancellationStopsRouting() {
+    List<String> calls = new ArrayList<>();
+    this.router.addHandler(UserEvent.DefaultType.EXITING, e -> e.setCancelled());
+    this.router.addHandler(UserEvent.DefaultType.EXITING, e -> calls.add("exiting"));
+    UserEvent event = new UserEvent(UserEvent.DefaultType.EXITING);
+    this.bus.dispatchEvent(event);
+    assertTrue(event.isCancelled());
+    assertTrue(calls.isEmpty());
+  }
+
+  @Test
+  public void testRemoveHandler() {
+    List<String> calls = new ArrayList<>();
+    Consumer<UserEvent> handler = e -> calls.add("open");
+    this.router.addHandler(CustomType.OPEN, handler);
+    assertTrue(this.router.removeHandler(CustomType.OPEN, handler));
+    assertFalse(this.router.removeHandler(CustomType.OPEN, handler));
+    assertFalse(this.router.hasHandlers(CustomType.OPEN));
+    this.bus.dispatchEvent(new UserEvent(CustomType.OPEN));
+    assertTrue(calls.isEmpty());
+  }
+
+  private enum CustomType implements UserEvent.Type {
+    OPEN;
+  }
+}
@@ -0,0 +1,89 @@
+package net.darmo_creations.gui_framework.events.journal;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.Test;
+
+import net.darmo_creations.gui_framework.config.Language;
+import net.darmo_creations.gui_framework.events.ChangeLanguageEvent;
+import net.darmo_creations.gui_framework.events.EventsBus;
+import net.darmo_creations.gui_framework.events.SubscribeEvent;
+import net.darmo_creations.gui_framework.events.UpdateEvent;
+import net.darmo_creations.gui_framework.events.UserEvent;
+import net.darmo_creations.utils.events.AbstractEvent;
+
+public class EventJournalTest {
+  @Test
+  public void testRecordAndReplay() throws IOException, InterruptedException {
+    EventsBus bus = new EventsBus();
+    EventsBus child = bus.createChild();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    EventRecorder recorder = EventRecorder.start(bus, out, EventCodecs.withDefaults());
+
+    child.dispatchEvent(new UserEvent(UserEvent.DefaultType.ABOUT));
+    bus.dispatchEvent(new ChangeLanguageEvent(new Language("English", Locale.US)));
+    bus.dispatchEvent(new UnknownEvent());
+    child.dispatchEvent(new UserEvent(UserEvent.DefaultType.HELP));
+    bus.dispatchEvent(new UpdateEvent.NoUpdate());
+    recorder.close();
+    bus.dispatchEvent(new UpdateEvent.NoUpdate());
+    assertEquals(5, recorder.getRecordedCount());
+
+    List<AbstractEvent> replayed = new ArrayList<>();
+    EventsBus target = new EventsBus();
+    target.register(new Object() {
+      @SubscribeEvent
+      public void onEvent(AbstractEvent e) {
+        replayed.add(e);
+      }
+    });
+    ReplayReport report;
+    try (EventJournalReader reader = new EventJournalReader(new ByteArrayInputStream(out.toByteArray()), EventCodecs.withDefaults())) {
+      report = EventReplayer.replay(reader, target, false);
+    }
+
+    assertEquals(4, report.getDispatchedCount());
+    assertEquals(1, report.getSkippedCount());
+    assertEquals(UserEvent.DefaultType.ABOUT, ((UserEvent) replayed.get(0)).getType());
+    assertEquals("en_US", ((ChangeLanguageEvent) replayed.get(1)).getLanguage().getCode());
+    assertEquals(UserEvent.DefaultType.HELP, ((UserEvent) replayed.get(2)).getType());
+    assertTrue(replayed.get(3) instanceof UpdateEvent.NoUpdate);
+  }
+
+  @Test
+  public void testEntries() throws IOException {
+    EventsBus bus = new EventsBus();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (EventRecorder recorder = EventRecorder.start(bus, out, new EventCodecs())) {
+      bus.dispatchEvent(new UpdateEvent.NoUpdate());
+      bus.dispatchEvent(new UpdateEvent.NoUpdate());
+      assertEquals(2, recorder.getRecordedCount());
+    }
+
+    EventJournalReader reader = new EventJournalReader(new ByteArrayInputStream(out.toByteArray()), new EventCodecs());
+    EventJournalReader.Entry first = reader.next().get();
+    EventJournalReader.Entry second = reader.next().get();
+    assertFalse(reader.next().isPresent());
+    assertEquals(UpdateEvent.NoUpdate.class.getName(), second.getEventClass());
+    assertFalse(second.getEvent().isPresent());
+    assertTrue(second.getTimestamp() >= first.getTimestamp());
+  }
+
+  @Test(expected = IOException.class)
+  public void testNotAJournal() throws IOException {
+    new EventJournalReader(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5}), new EventCodecs());
+  }
+
+  private static class UnknownEvent extends AbstractEvent {
+    UnknownEvent() {
+      super(false);
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package net.darmo_creations.gui_framework.lifecycle;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class LifecycleManagerTest {
+  private LifecycleManager lifecycle;
+
+  @Before
+  public void setUp() {
+    this.lifecycle = new LifecycleManager();
+  }
+
+  @Test
+  public void testStates() {
+    assertEquals(LifecycleManager.State.STARTING, this.lifecycle.getState());
+    this.lifecycle.setRunning();
+    assertEquals(LifecycleManager.State.RUNNING, this.lifecycle.getState());
+    this.lifecycle.shutdown();
+    assertEquals(LifecycleManager.State.STOPPED, this.lifecycle.getState());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testShutdownTwice() {
+    this.lifecycle.shutdown();
+    this.lifecycle.shutdown();
+  }
+
+  @Test
+  public void testTasksRunConcurrently() {
+    CountDownLatch latch = new CountDownLatch(2);
+    Runnable task = () -> {
+      latch.countDown();
+      try {
+        latch.await();
+      }
+      catch (InterruptedException ex) {
+        throw new RuntimeException(ex);
+      }
+    };
+    this.lifecycle.addShutdownTask("a", task, 5, TimeUnit.SECONDS);
+    this.lifecycle.addShutdownTask("b", task, 5, TimeUnit.SECONDS);
+    assertTrue(this.lifecycle.shutdown().isSuccessful());
+  }
+
+  @Test
+  public void testOverrunReported() {
+    this.lifecycle.addShutdownTask("slow", () -> {
+      try {
+        Thread.sleep(10_000);
+      }
+      catch (InterruptedException __) {}
+    }, 50, TimeUnit.MILLISECONDS);
+    this.lifecycle.addShutdownTask("fast", () -> {}, 1, TimeUnit.SECONDS);
+
+    long start = System.nanoTime();
+    ShutdownReport report = this.lifecycle.shutdown();
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+    assertEquals(1, report.getFailures().size());
+    assertEquals("slow", report.getFailures().get(0).getName());
+    assertEquals(ShutdownReport.Status.TIMED_OUT, report.getFailures().get(0).getStatus());
+  }
+
+  @Test
+  public void testCriticalTaskNotInterrupted() throws InterruptedException {
+    AtomicBoolean interrupted = new AtomicBoolean();
+    CountDownLatch done = new CountDownLatch(1);
+    this.lifecycle.addCriticalShutdownTask("critical", () -> {
+      try {
+        Thread.sleep(300);
+      }
+      catch (InterruptedException ex) {
+        interrupted.set(true);
+      }
+      done.countDown();
+    }, 50, TimeUnit.MILLISECONDS);
+    ShutdownReport report = this.lifecycle.shutdown();
+    assertEquals(ShutdownReport.Status.TIMED_OUT, report.getResults().get(0).getStatus());
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertFalse(interrupted.get());
+  }
+
+  @Test
+  public void testFailureReported() {
+    this.lifecycle.addShutdownTask("failing", () -> {
+      throw new IllegalStateException();
+    }, 1, TimeUnit.SECONDS);
+    ShutdownReport.TaskResult result = this.lifecycle.shutdown().getResults().get(0);
+    assertEquals(ShutdownReport.Status.FAILED, result.getStatus());
+    assertTrue(result.getError().get() instanceof IllegalStateException);
+  }
+}
@@ -0,0 +1,54 @@
+package net.darmo_creations.gui_framework.lifecycle;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SingleInstanceTest {
+  private String name;
+  private SingleInstance instance;
+
+  @Before
+  public void setUp() throws IOException {
+    this.name = "single-instance-test-" + UUID.randomUUID();
+    this.instance = SingleInstance.acquire(this.name).get();
+  }
+
+  @After
+  public void tearDown() {
+    this.instance.close();
+  }
+
+  @Test
+  public void testSecondAcquireFails() throws IOException {
+    Optional<SingleInstance> other = SingleInstance.acquire(this.name);
+    other.ifPresent(SingleInstance::close);
+    assertFalse(other.isPresent());
+  }
+
+  @Test
+  public void testArgumentsQueuedUntilListening() throws IOException {
+    assertTrue(SingleInstance.forward(this.name, new String[]{"a", "b"}));
+    assertTrue(SingleInstance.forward(this.name, new String[]{"c"}));
+
+    List<String[]> received = new CopyOnWriteArrayList<>();
+    this.instance.listen(received::add);
+    assertEquals(2, received.size());
+    assertArrayEquals(new String[]{"a", "b"}, received.get(0));
+    assertArrayEquals(new String[]{"c"}, received.get(1));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testListenTwice() {
+    this.instance.listen(args -> {});
+    this.instance.listen(args -> {});
+  }
+}
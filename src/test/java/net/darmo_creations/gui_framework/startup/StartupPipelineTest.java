@@ -0,0 +1,87 @@
+package net.darmo_creations.gui_framework.startup;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class StartupPipelineTest {
+  private StartupPipeline pipeline;
+
+  @Before
+  public void setUp() {
+    this.pipeline = new StartupPipeline(2);
+  }
+
+  @Test
+  public void testDependenciesRunFirst() {
+    List<String> order = new CopyOnWriteArrayList<>();
+    this.pipeline.addStage("b", () -> order.add("b"), "a");
+    this.pipeline.addStage("a", () -> order.add("a"));
+    this.pipeline.run();
+    assertEquals(2, order.size());
+    assertEquals("a", order.get(0));
+  }
+
+  @Test
+  public void testIndependentStagesRunConcurrently() {
+    CountDownLatch latch = new CountDownLatch(2);
+    this.pipeline.addStage("a", () -> {
+      latch.countDown();
+      return latch.await(5, TimeUnit.SECONDS);
+    });
+    this.pipeline.addStage("b", () -> {
+      latch.countDown();
+      return latch.await(5, TimeUnit.SECONDS);
+    });
+    this.pipeline.run();
+    assertTrue(this.pipeline.<Boolean>getResult("a"));
+    assertTrue(this.pipeline.<Boolean>getResult("b"));
+  }
+
+  @Test
+  public void testResultAvailableToDependents() {
+    this.pipeline.addStage("a", () -> 1);
+    this.pipeline.addStage("b", () -> this.pipeline.<Integer>getResult("a") + 1, "a");
+    this.pipeline.run();
+    assertEquals(Integer.valueOf(2), this.pipeline.getResult("b"));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testCycleDetected() {
+    this.pipeline.addStage("a", () -> null, "b");
+    this.pipeline.addStage("b", () -> null, "a");
+    this.pipeline.run();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testUnknownDependency() {
+    this.pipeline.addStage("a", () -> null, "b");
+    this.pipeline.run();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDuplicateStage() {
+    this.pipeline.addStage("a", () -> null);
+    this.pipeline.addStage("a", () -> null);
+  }
+
+  @Test
+  public void testFailureReportsStage() {
+    this.pipeline.addStage("a", () -> {
+      throw new Exception("error");
+    });
+    try {
+      this.pipeline.run();
+      fail();
+    }
+    catch (StartupException ex) {
+      assertEquals("a", ex.getStageName());
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package net.darmo_creations.gui_framework.startup;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class StartupProfilerTest {
+  @After
+  public void tearDown() {
+    StartupProfiler.reset(false);
+  }
+
+  @Test
+  public void testDisabled() {
+    StartupProfiler.reset(false);
+    StartupProfiler.Phase phase = StartupProfiler.begin("a");
+    assertSame(phase, StartupProfiler.begin("b"));
+    phase.end();
+    AtomicBoolean ran = new AtomicBoolean();
+    StartupProfiler.run("c", () -> ran.set(true));
+    assertTrue(ran.get());
+    assertEquals(Integer.valueOf(1), StartupProfiler.call("d", () -> 1));
+    assertTrue(StartupProfiler.getRecords().isEmpty());
+  }
+
+  @Test
+  public void testRecording() {
+    StartupProfiler.reset(true);
+    StartupProfiler.run("a", () -> {});
+    assertEquals("x", StartupProfiler.call("b", () -> "x"));
+    StartupProfiler.Phase phase = StartupProfiler.begin("c");
+    phase.end();
+    phase.end();
+
+    List<StartupProfiler.Record> records = StartupProfiler.getRecords();
+    assertEquals(3, records.size());
+    assertEquals("a", records.get(0).getName());
+    assertEquals("b", records.get(1).getName());
+    assertEquals("c", records.get(2).getName());
+    assertEquals(Thread.currentThread().getName(), records.get(0).getThreadName());
+    assertTrue(records.get(0).getDuration() >= 0);
+  }
+
+  @Test
+  public void testPhaseEndedOnException() {
+    StartupProfiler.reset(true);
+    try {
+      StartupProfiler.run("failing", () -> {
+        throw new IllegalStateException();
+      });
+      fail();
+    }
+    catch (IllegalStateException __) {}
+    assertEquals("failing", StartupProfiler.getRecords().get(0).getName());
+  }
+
+  @Test
+  public void testStop() {
+    StartupProfiler.reset(true);
+    StartupProfiler.stop();
+    assertFalse(StartupProfiler.isRecording());
+    StartupProfiler.run("a", () -> {});
+    assertTrue(StartupProfiler.getRecords().isEmpty());
+  }
+
+  @Test
+  public void testExport() throws IOException {
+    StartupProfiler.reset(true);
+    StartupProfiler.run("a\"b", () -> {});
+    StringWriter writer = new StringWriter();
+    StartupProfiler.export(writer);
+    String trace = writer.toString();
+    assertTrue(trace.startsWith("{\"displayTimeUnit\":\"ns\",\"traceEvents\":["));
+    assertTrue(trace.contains("\"name\":\"a\\\"b\""));
+  }
+}